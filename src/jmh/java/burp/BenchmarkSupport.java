@@ -0,0 +1,148 @@
+package burp;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the benchmarks: a minimal Montoya object factory (normally provided
+ * by Burp at runtime) and domains populated with synthetic gateways.
+ */
+final class BenchmarkSupport {
+    static final String[] REGIONS = {
+        "us-east-1", "us-east-2", "us-west-1", "us-west-2", "eu-west-1", "eu-west-2", "eu-west-3",
+        "eu-central-1", "eu-north-1", "ap-south-1", "ap-northeast-1", "ap-northeast-2",
+        "ap-southeast-1", "ap-southeast-2", "ca-central-1", "sa-east-1"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Install stand-ins for the two factory calls the routing path makes: HttpService.httpService
+     * (when gateways are parsed) and RequestToBeSentAction.continueWith (once per request)
+     */
+    static synchronized void installObjectFactory() {
+        if (ObjectFactoryLocator.FACTORY != null) {
+            return;
+        }
+        ObjectFactoryLocator.FACTORY = (MontoyaObjectFactory) Proxy.newProxyInstance(
+                MontoyaObjectFactory.class.getClassLoader(),
+                new Class<?>[]{MontoyaObjectFactory.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "httpService":
+                            if (args.length == 3) {
+                                return new StubHttpService((String) args[0], (Integer) args[1], (Boolean) args[2]);
+                            }
+                            break;
+                        case "requestResult":
+                            if (args.length == 1) {
+                                return new StubRequestAction((HttpRequest) args[0]);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    throw new UnsupportedOperationException(method.toString());
+                });
+    }
+
+    /**
+     * A domain with the given number of gateways spread over the AWS regions, with random
+     * weights, latencies and outstanding-request counts so every strategy has real work to do
+     */
+    static DomainConfig domainWithGateways(String domain, int gatewayCount, DomainConfig.RotationStrategy strategy) {
+        return domainWithGateways(domain, gatewayCount, strategy, false);
+    }
+
+    /**
+     * As above; with sharedRandom the domain draws from one seeded java.util.Random shared
+     * by every thread, as all domains did before per-thread generators
+     */
+    static DomainConfig domainWithGateways(String domain, int gatewayCount, DomainConfig.RotationStrategy strategy,
+                                           boolean sharedRandom) {
+        installObjectFactory();
+        Random random = new Random(42);
+        DomainConfig domainConfig = sharedRandom ? new DomainConfig(domain, 42) : new DomainConfig(domain);
+        domainConfig.setStrategy(strategy);
+        for (int i = 0; i < gatewayCount; i++) {
+            String region = REGIONS[i % REGIONS.length];
+            String url = String.format("https://gw%04d.execute-api.%s.amazonaws.com/stage%d", i, region, i);
+            try {
+                domainConfig.addGateway(new GatewayConfig(url, region, 1 + random.nextInt(100)));
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        for (GatewayEndpoint endpoint : domainConfig.getEndpoints()) {
+            endpoint.getLatency().record((50 + random.nextInt(400)) * 1_000_000L);
+            for (int outstanding = random.nextInt(8); outstanding > 0; outstanding--) {
+                endpoint.requestStarted();
+            }
+        }
+        return domainConfig;
+    }
+
+    static final class StubHttpService implements HttpService {
+        private final String host;
+        private final int port;
+        private final boolean secure;
+
+        StubHttpService(String host, int port, boolean secure) {
+            this.host = host;
+            this.port = port;
+            this.secure = secure;
+        }
+
+        @Override
+        public String host() {
+            return host;
+        }
+
+        @Override
+        public int port() {
+            return port;
+        }
+
+        @Override
+        public boolean secure() {
+            return secure;
+        }
+
+        @Override
+        public String ipAddress() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return (secure ? "https://" : "http://") + host + ":" + port;
+        }
+    }
+
+    static final class StubRequestAction implements RequestToBeSentAction {
+        private final HttpRequest request;
+
+        StubRequestAction(HttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Annotations annotations() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
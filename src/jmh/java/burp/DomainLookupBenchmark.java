@@ -0,0 +1,93 @@
+package burp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Host lookup (HostIndex, as used by RoutingSnapshot.route) against 10 to 10,000 mappings,
+ * one in ten of them wildcards. Lookups cycle through pre-built host names so the cost of
+ * building the strings is not measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainLookupBenchmark {
+    private static final int HOSTS = 1024; // power of two for cheap wrap-around
+
+    @Param({"10", "100", "1000", "10000"})
+    public int mappings;
+
+    private HostIndex<Integer> index;
+    private final String[] exactHosts = new String[HOSTS];
+    private final String[] mixedCaseHosts = new String[HOSTS];
+    private final String[] wildcardHosts = new String[HOSTS];
+    private final String[] missHosts = new String[HOSTS];
+
+    @Setup
+    public void setUp() {
+        Map<String, Integer> entries = new HashMap<>();
+        for (int i = 0; i < mappings; i++) {
+            entries.put(i % 10 == 0 ? "*.wild" + i + ".example.com" : "host" + i + ".example.com", i);
+        }
+        index = HostIndex.build(entries);
+
+        Random random = new Random(42);
+        for (int i = 0; i < HOSTS; i++) {
+            int exact = random.nextInt(mappings);
+            if (exact % 10 == 0) {
+                exact = (exact + 1) % mappings;
+            }
+            int wildcard = random.nextInt((mappings + 9) / 10) * 10;
+            exactHosts[i] = "host" + exact + ".example.com";
+            mixedCaseHosts[i] = "Host" + exact + ".Example.com";
+            wildcardHosts[i] = "api.v" + i + ".wild" + wildcard + ".example.com";
+            missHosts[i] = "unknown" + i + ".other.org";
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            return next = (next + 1) & (HOSTS - 1);
+        }
+    }
+
+    @Benchmark
+    public Integer exactHit(Cursor cursor) {
+        return index.lookup(exactHosts[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Integer mixedCaseHit(Cursor cursor) {
+        return index.lookup(mixedCaseHosts[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Integer wildcardHit(Cursor cursor) {
+        return index.lookup(wildcardHosts[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Integer miss(Cursor cursor) {
+        return index.lookup(missHosts[cursor.advance()]);
+    }
+}
@@ -0,0 +1,83 @@
+package burp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway selection (DomainRoute.next) for every rotation strategy, domain size and a
+ * range of concurrent Burp tool threads. JMH cannot parameterise the thread count, so
+ * each thread count is its own benchmark method.
+ *
+ * The SHARED random source is the baseline for the per-thread generators: every thread
+ * draws from one java.util.Random, whose seed CAS is contended. Only RANDOM, WEIGHTED and
+ * FASTEST_OF_TWO draw random numbers; compare e.g. with -p strategy=RANDOM.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GatewaySelectionBenchmark {
+    @Param({"ROUND_ROBIN", "RANDOM", "WEIGHTED", "FASTEST_OF_TWO", "LEAST_OUTSTANDING"})
+    public DomainConfig.RotationStrategy strategy;
+
+    @Param({"1", "16", "256"})
+    public int gateways;
+
+    @Param({"PER_THREAD", "SHARED"})
+    public RandomSource random;
+
+    private DomainRoute route;
+
+    @Setup
+    public void setUp() {
+        DomainConfig domainConfig = BenchmarkSupport.domainWithGateways("bench.example.com", gateways, strategy,
+                random == RandomSource.SHARED);
+        route = RoutingSnapshot.of(true, false, CircuitBreaker.Settings.DEFAULT, new RateLimiter(),
+                new MetricsRegistry(), Collections.singletonMap(domainConfig.getDomain(), domainConfig))
+                .route(domainConfig.getDomain());
+    }
+
+    public enum RandomSource {
+        PER_THREAD, // ThreadLocalRandom (current behavior)
+        SHARED      // one java.util.Random for the domain (baseline)
+    }
+
+    @Benchmark
+    @Threads(1)
+    public GatewayEndpoint threads01() {
+        return route.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public GatewayEndpoint threads04() {
+        return route.next();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public GatewayEndpoint threads16() {
+        return route.next();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public GatewayEndpoint threads64() {
+        return route.next();
+    }
+}
@@ -0,0 +1,107 @@
+package burp;
+
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The whole request rewrite in the HTTP handler: snapshot read, host lookup, gateway
+ * selection, path/Host/service rewrite, in-flight tracking, metrics and the rewrite log.
+ * Burp's request objects are replaced by StubHttpRequest; its cost (one allocation per
+ * with* call) is a lower bound for what Burp's real implementation does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestRewriteBenchmark {
+    private static final String TARGET = "api.example.com";
+    private static final AtomicInteger MESSAGE_IDS = new AtomicInteger();
+
+    @Param({"1", "16"})
+    public int gateways;
+
+    @Param({"OFF", "SUMMARY", "FULL"})
+    public RewriteLog.Level logLevel;
+
+    @Param({"false", "true"})
+    public boolean preserveOriginalHost;
+
+    private HttpHandler handler;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        BenchmarkSupport.installObjectFactory();
+        AwsIpRotatorExtension.AwsIpRotatorConfig config = new AwsIpRotatorExtension.AwsIpRotatorConfig();
+        config.enabled = true;
+        config.preserveOriginalHost = preserveOriginalHost;
+        config.domainConfigs.put(TARGET,
+                BenchmarkSupport.domainWithGateways(TARGET, gateways, DomainConfig.RotationStrategy.ROUND_ROBIN));
+        // Other configured domains so the lookup works against a realistic table
+        for (int i = 0; i < 100; i++) {
+            String domain = "other" + i + ".example.org";
+            config.domainConfigs.put(domain, new DomainConfig(domain));
+        }
+        config.publishRouting();
+
+        RewriteLog rewriteLog = new RewriteLog(null); // drain task is never started
+        rewriteLog.setLevel(logLevel);
+        // Retries stay off, so the handler never needs Burp's Http
+        handler = new AwsIpRotatorExtension.AwsIpRotatorHttpHandler(config, new InFlightRequests(), rewriteLog, null);
+    }
+
+    /**
+     * Per-thread requests. Each thread reuses one message ID, so the in-flight table holds
+     * one entry per thread instead of growing without responses.
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+        StubHttpRequest matching;
+        StubHttpRequest passThrough;
+
+        @Setup
+        public void setUp() {
+            BenchmarkSupport.installObjectFactory();
+            int messageId = MESSAGE_IDS.incrementAndGet();
+            matching = new StubHttpRequest(new BenchmarkSupport.StubHttpService(TARGET, 443, true),
+                    "/v1/users/12345?fields=name,email", messageId, 420);
+            passThrough = new StubHttpRequest(new BenchmarkSupport.StubHttpService("unrelated.example.net", 443, true),
+                    "/index.html", messageId, 380);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public RequestToBeSentAction rewrite(Requests requests) {
+        return handler.handleHttpRequestToBeSent(requests.matching);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public RequestToBeSentAction rewrite8Threads(Requests requests) {
+        return handler.handleHttpRequestToBeSent(requests.matching);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public RequestToBeSentAction passThrough(Requests requests) {
+        return handler.handleHttpRequestToBeSent(requests.passThrough);
+    }
+}
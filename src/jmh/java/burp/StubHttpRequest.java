@@ -0,0 +1,381 @@
+package burp;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Marker;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.requests.HttpTransformation;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Lightweight stand-in for Burp's request objects so the HTTP handler can be benchmarked
+ * outside Burp. Only the methods the handler calls are implemented; each with* call
+ * returns a new instance, as Burp's immutable requests do.
+ */
+final class StubHttpRequest implements HttpRequestToBeSent {
+    private static final ByteArray EMPTY_BODY = (ByteArray) Proxy.newProxyInstance(
+            ByteArray.class.getClassLoader(), new Class<?>[]{ByteArray.class}, (proxy, method, args) -> {
+                if (method.getName().equals("length")) {
+                    return 0;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+    private final HttpService service;
+    private final String path;
+    private final int messageId;
+    private final int headerLength;
+
+    StubHttpRequest(HttpService service, String path, int messageId, int headerLength) {
+        this.service = service;
+        this.path = path;
+        this.messageId = messageId;
+        this.headerLength = headerLength;
+    }
+
+    @Override
+    public Annotations annotations() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int bodyOffset() {
+        return headerLength;
+    }
+
+    @Override
+    public String bodyToString() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ByteArray body() {
+        return EMPTY_BODY;
+    }
+
+    @Override
+    public boolean contains(String arg, boolean arg2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean contains(Pattern arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ContentType contentType() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest copyToTempFile() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String fileExtension() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasHeader(String arg, String arg2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasHeader(String arg) {
+        return false; // stand-in requests carry no headers
+    }
+
+    @Override
+    public boolean hasHeader(HttpHeader arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasParameter(String arg, HttpParameterType arg2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasParameter(HttpParameter arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasParameters() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasParameters(HttpParameterType arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String headerValue(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpHeader header(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<HttpHeader> headers() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpService httpService() {
+        return service;
+    }
+
+    @Override
+    public String httpVersion() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isInScope() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Marker> markers() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int messageId() {
+        return messageId;
+    }
+
+    @Override
+    public String method() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String parameterValue(String arg, HttpParameterType arg2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String parameterValue(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ParsedHttpParameter parameter(String arg, HttpParameterType arg2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ParsedHttpParameter parameter(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<ParsedHttpParameter> parameters() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<ParsedHttpParameter> parameters(HttpParameterType arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String pathWithoutQuery() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+
+    @Override
+    public String query() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ByteArray toByteArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ToolSource toolSource() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String url() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withAddedHeader(String name, String value) {
+        return new StubHttpRequest(service, path, messageId, headerLength + name.length() + value.length() + 4);
+    }
+
+    @Override
+    public HttpRequest withAddedHeader(HttpHeader arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withAddedHeaders(HttpHeader... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withAddedHeaders(List<? extends HttpHeader> arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withAddedParameters(HttpParameter... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withAddedParameters(List<? extends HttpParameter> arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withBody(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withBody(ByteArray arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withDefaultHeaders() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withHeader(String arg, String arg2) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withHeader(HttpHeader arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withMarkers(Marker... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withMarkers(List<Marker> arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withMethod(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withParameter(HttpParameter arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withPath(String newPath) {
+        return new StubHttpRequest(service, newPath, messageId, headerLength);
+    }
+
+    @Override
+    public HttpRequest withRemovedHeader(String arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withRemovedHeader(HttpHeader arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withRemovedHeaders(HttpHeader... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withRemovedHeaders(List<? extends HttpHeader> arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withRemovedParameters(HttpParameter... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withRemovedParameters(List<? extends HttpParameter> arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withService(HttpService newService) {
+        return new StubHttpRequest(newService, path, messageId, headerLength);
+    }
+
+    @Override
+    public HttpRequest withTransformationApplied(HttpTransformation arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withUpdatedHeader(String name, String value) {
+        return new StubHttpRequest(service, path, messageId, headerLength);
+    }
+
+    @Override
+    public HttpRequest withUpdatedHeader(HttpHeader arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withUpdatedHeaders(HttpHeader... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withUpdatedHeaders(List<? extends HttpHeader> arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withUpdatedParameters(HttpParameter... arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public HttpRequest withUpdatedParameters(List<? extends HttpParameter> arg) {
+        throw new UnsupportedOperationException();
+    }
+}
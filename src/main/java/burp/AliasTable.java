@@ -0,0 +1,82 @@
+package burp;
+
+import java.util.Random;
+
+/**
+ * Vose alias table for O(1) weighted random selection.
+ *
+ * Built once per published route from the gateway weights; sampling costs a single
+ * random draw and one array lookup with no allocation.
+ */
+final class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    AliasTable(int[] weights) {
+        int n = weights.length;
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        long totalWeight = 0;
+        for (int weight : weights) {
+            totalWeight += weight;
+        }
+
+        // Scale weights so the average bucket holds exactly 1.0
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double) weights[i] * n / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        // Pair each under-full bucket with an over-full one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Whatever is left is full up to floating point error
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Pick an index with probability proportional to its weight
+     */
+    int sample(Random random) {
+        // One draw: the integer part picks the bucket, the fraction picks bucket vs. alias
+        double u = random.nextDouble() * probability.length;
+        int bucket = (int) u;
+        return (u - bucket) < probability[bucket] ? bucket : alias[bucket];
+    }
+
+    int size() {
+        return probability.length;
+    }
+}
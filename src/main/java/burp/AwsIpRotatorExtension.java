@@ -4,8 +4,11 @@ import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.http.handler.*;
 import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.Http;
 import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.RequestOptions;
 import burp.api.montoya.core.Registration;
 import burp.api.montoya.ui.UserInterface;
 import burp.api.montoya.logging.Logging;
@@ -28,11 +31,14 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * AWS IP Rotator Burp Extension
@@ -48,12 +54,31 @@ public class AwsIpRotatorExtension implements BurpExtension {
         "redirect", "bypass", "rotate", "rotation", "security", "pentest"
     };
 
+    // How often stale inventory regions are looked for and the inventory is saved
+    private static final long INVENTORY_CHECK_SECONDS = 30;
+
+    // How long the tuning controls must stay still before their settings are published and saved
+    private static final int SETTINGS_SAVE_DELAY_MS = 500;
+
     private MontoyaApi api;
     private Logging logging;
     private AwsIpRotatorConfig config;
     private AwsIpRotatorManager awsManager;
+    private RewriteLog rewriteLog;
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
+    private ExecutionService executionService;
+    private Timer gatewayHealthTimer;
+    private Timer settingsSaveTimer;
+    private MetricsPanel metricsPanel;
+    private JobsPanel jobsPanel;
     private JPanel mainPanel;
     private DefaultTableModel gatewaysTableModel;
+    private JLabel gatewaysStatusLabel;
+    private int gatewayRefreshGeneration; // EDT only; stale refreshes stop adding rows
+    private boolean gatewayRefreshRunning; // EDT only
+    private GatewayInventory gatewayInventory = new GatewayInventory(GatewayInventory.DEFAULT_TTL_MS);
+    private final Set<String> reconcilingRegions = ConcurrentHashMap.newKeySet();
+    private GatewayJobQueue jobQueue;
     private DefaultTableModel mappingsTableModel;
 
     @Override
@@ -61,15 +86,41 @@ public class AwsIpRotatorExtension implements BurpExtension {
         this.api = api;
         this.logging = api.logging();
         this.config = new AwsIpRotatorConfig();
+        this.rewriteLog = new RewriteLog(logging);
 
         // Set extension name
         api.extension().setName("AWS IP Rotator");
 
-        // Load persisted domain mappings from Burp project
+        // Load persisted domain mappings and the cached gateway inventory from Burp project
         loadDomainMappings();
+        try {
+            gatewayInventory = GatewayInventory.load(api.persistence().extensionData(), GatewayInventory.DEFAULT_TTL_MS);
+        } catch (Exception e) {
+            logging.logToError("Failed to load gateway inventory: " + e.getMessage());
+        }
+
+        // Every background thread comes from one execution service, shut down on unload
+        executionService = new ExecutionService();
+        api.extension().registerUnloadingHandler(this::unload);
+
+        // Start background rewrite logging and in-flight request expiry
+        ScheduledExecutorService scheduler = executionService.scheduler();
+        rewriteLog.start(scheduler);
+        scheduler.scheduleWithFixedDelay(
+            () -> inFlightRequests.expire(config.routing.getBreakerSettings()), 5, 5, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::maintainGatewayInventory,
+            INVENTORY_CHECK_SECONDS, INVENTORY_CHECK_SECONDS, TimeUnit.SECONDS);
+
+        // Gateway jobs left unfinished by the last session wait for an AWS connection
+        jobQueue = GatewayJobQueue.load(api.persistence().extensionData(), gatewayInventory,
+            this::resumedJobFinished);
+        if (jobQueue.size() > 0) {
+            logging.logToOutput(jobQueue.size() + " unfinished gateway job(s) from a previous session will resume "
+                + "once connected to AWS (see the Jobs tab)");
+        }
 
         // Register HTTP handler
-        api.http().registerHttpHandler(new AwsIpRotatorHttpHandler());
+        api.http().registerHttpHandler(new AwsIpRotatorHttpHandler(config, inFlightRequests, rewriteLog, api.http()));
 
         // Create and register UI
         createUI();
@@ -82,6 +133,41 @@ public class AwsIpRotatorExtension implements BurpExtension {
         logging.logToOutput("Configure multi-region rotation in the 'AWS IP Rotator' tab");
     }
 
+    /**
+     * Stop background threads and timers when the extension is unloaded
+     */
+    private void unload() {
+        rewriteLog.stop();
+        try {
+            gatewayInventory.saveIfDirty(api.persistence().extensionData());
+        } catch (Exception e) {
+            logging.logToError("Failed to save gateway inventory: " + e.getMessage());
+        }
+        if (gatewayHealthTimer != null) {
+            gatewayHealthTimer.stop();
+        }
+        if (settingsSaveTimer != null && settingsSaveTimer.isRunning()) {
+            settingsSaveTimer.stop();
+            saveDomainMappings();
+        }
+        if (metricsPanel != null) {
+            metricsPanel.stop();
+        }
+        if (jobsPanel != null) {
+            jobsPanel.stop();
+        }
+        // Jobs cut short here stay recorded at their current step and resume next time
+        if (jobQueue != null) {
+            jobQueue.disconnect();
+        }
+        if (awsManager != null) {
+            awsManager.close();
+        }
+        if (executionService != null) {
+            executionService.shutdown();
+        }
+    }
+
     /**
      * Check if a stage name is in the blacklist
      */
@@ -98,6 +184,14 @@ public class AwsIpRotatorExtension implements BurpExtension {
         return false;
     }
 
+    /**
+     * Publish routing and save once the tuning controls have been still for
+     * SETTINGS_SAVE_DELAY_MS, instead of on every spinner step (EDT only)
+     */
+    private void saveSettingsSoon() {
+        settingsSaveTimer.restart();
+    }
+
     /**
      * Save domain mappings to Burp project file
      */
@@ -105,14 +199,34 @@ public class AwsIpRotatorExtension implements BurpExtension {
         try {
             PersistedObject persistedData = api.persistence().extensionData();
 
-            // Clear existing data
+            // Clear existing domain data (other child objects, such as the gateway inventory, are kept)
             for (String key : persistedData.childObjectKeys()) {
-                persistedData.deleteChildObject(key);
+                if (key.startsWith("domain_")) {
+                    persistedData.deleteChildObject(key);
+                }
             }
 
             // Save enabled state
             persistedData.setBoolean("enabled", config.enabled);
             persistedData.setBoolean("preserveOriginalHost", config.preserveOriginalHost);
+            persistedData.setString("rewriteLogLevel", rewriteLog.getLevel().name());
+            persistedData.setInteger("rewriteLogEvery", rewriteLog.getEvery());
+            persistedData.setInteger("breakerFailureThreshold", config.breakerSettings.failureThreshold);
+            persistedData.setLong("breakerLatencyThresholdMs", config.breakerSettings.latencyThresholdMs);
+            persistedData.setLong("breakerOpenSeconds", config.breakerSettings.openSeconds);
+            persistedData.setInteger("breakerTrialRequests", config.breakerSettings.trialRequests);
+            RateLimiter.Settings rateLimits = config.rateLimiter.getSettings();
+            persistedData.setInteger("rateLimitGatewayPerSecond", rateLimits.gatewayPerSecond);
+            persistedData.setInteger("rateLimitGatewayBurst", rateLimits.gatewayBurst);
+            persistedData.setInteger("rateLimitRegionPerSecond", rateLimits.regionPerSecond);
+            persistedData.setInteger("rateLimitRegionBurst", rateLimits.regionBurst);
+            persistedData.setString("rateLimitOnSaturated", rateLimits.onSaturated.name());
+            persistedData.setLong("rateLimitMaxWaitMs", rateLimits.maxWaitMs);
+            RetryPolicy.Settings retrySettings = config.retryPolicy.getSettings();
+            persistedData.setBoolean("retryEnabled", retrySettings.enabled);
+            persistedData.setInteger("retryMaxRetries", retrySettings.maxRetries);
+            persistedData.setLong("retryBaseBackoffMs", retrySettings.baseBackoffMs);
+            persistedData.setInteger("retryBudgetPercent", retrySettings.budgetPercent);
 
             // Save each domain configuration
             int domainIndex = 0;
@@ -123,6 +237,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
                 PersistedObject domainObj = PersistedObject.persistedObject();
                 domainObj.setString("domain", domain);
                 domainObj.setString("strategy", domainConfig.getStrategy().name());
+                domainObj.setInteger("burstSize", domainConfig.getBurstSize());
 
                 // Save gateways for this domain
                 List<GatewayConfig> gateways = domainConfig.getGateways();
@@ -163,6 +278,60 @@ public class AwsIpRotatorExtension implements BurpExtension {
                 config.preserveOriginalHost = preserveOriginalHost;
             }
 
+            String rewriteLogLevel = persistedData.getString("rewriteLogLevel");
+            if (rewriteLogLevel != null) {
+                try {
+                    rewriteLog.setLevel(RewriteLog.Level.valueOf(rewriteLogLevel));
+                } catch (IllegalArgumentException e) {
+                    // Keep default level if invalid
+                }
+            }
+
+            Integer rewriteLogEvery = persistedData.getInteger("rewriteLogEvery");
+            if (rewriteLogEvery != null) {
+                rewriteLog.setEvery(rewriteLogEvery);
+            }
+
+            Integer breakerFailureThreshold = persistedData.getInteger("breakerFailureThreshold");
+            Long breakerLatencyThresholdMs = persistedData.getLong("breakerLatencyThresholdMs");
+            Long breakerOpenSeconds = persistedData.getLong("breakerOpenSeconds");
+            Integer breakerTrialRequests = persistedData.getInteger("breakerTrialRequests");
+            if (breakerFailureThreshold != null && breakerLatencyThresholdMs != null
+                    && breakerOpenSeconds != null && breakerTrialRequests != null) {
+                config.breakerSettings = new CircuitBreaker.Settings(breakerFailureThreshold,
+                    breakerLatencyThresholdMs, breakerOpenSeconds, breakerTrialRequests);
+            }
+
+            Integer rateLimitGatewayPerSecond = persistedData.getInteger("rateLimitGatewayPerSecond");
+            Integer rateLimitGatewayBurst = persistedData.getInteger("rateLimitGatewayBurst");
+            Integer rateLimitRegionPerSecond = persistedData.getInteger("rateLimitRegionPerSecond");
+            Integer rateLimitRegionBurst = persistedData.getInteger("rateLimitRegionBurst");
+            String rateLimitOnSaturated = persistedData.getString("rateLimitOnSaturated");
+            Long rateLimitMaxWaitMs = persistedData.getLong("rateLimitMaxWaitMs");
+            if (rateLimitGatewayPerSecond != null && rateLimitGatewayBurst != null
+                    && rateLimitRegionPerSecond != null && rateLimitRegionBurst != null
+                    && rateLimitOnSaturated != null && rateLimitMaxWaitMs != null) {
+                RateLimiter.SaturatedAction onSaturated;
+                try {
+                    onSaturated = RateLimiter.SaturatedAction.valueOf(rateLimitOnSaturated);
+                } catch (IllegalArgumentException e) {
+                    onSaturated = RateLimiter.SaturatedAction.WAIT;
+                }
+                config.rateLimiter.setSettings(new RateLimiter.Settings(rateLimitGatewayPerSecond,
+                    rateLimitGatewayBurst, rateLimitRegionPerSecond, rateLimitRegionBurst,
+                    onSaturated, rateLimitMaxWaitMs));
+            }
+
+            Boolean retryEnabled = persistedData.getBoolean("retryEnabled");
+            Integer retryMaxRetries = persistedData.getInteger("retryMaxRetries");
+            Long retryBaseBackoffMs = persistedData.getLong("retryBaseBackoffMs");
+            Integer retryBudgetPercent = persistedData.getInteger("retryBudgetPercent");
+            if (retryEnabled != null && retryMaxRetries != null
+                    && retryBaseBackoffMs != null && retryBudgetPercent != null) {
+                config.retryPolicy.setSettings(new RetryPolicy.Settings(retryEnabled, retryMaxRetries,
+                    retryBaseBackoffMs, retryBudgetPercent));
+            }
+
             // Load domain configurations
             config.domainConfigs.clear();
             for (String domainKey : persistedData.childObjectKeys()) {
@@ -189,6 +358,11 @@ public class AwsIpRotatorExtension implements BurpExtension {
                     }
                 }
 
+                Integer burstSize = domainObj.getInteger("burstSize");
+                if (burstSize != null) {
+                    domainConfig.setBurstSize(burstSize);
+                }
+
                 // Load gateways for this domain
                 for (String gatewayKey : domainObj.childObjectKeys()) {
                     if (!gatewayKey.startsWith("gateway_")) {
@@ -202,13 +376,19 @@ public class AwsIpRotatorExtension implements BurpExtension {
 
                     if (url != null && region != null) {
                         GatewayConfig gateway = new GatewayConfig(url, region, weight != null ? weight : 100);
-                        domainConfig.addGateway(gateway);
+                        try {
+                            domainConfig.addGateway(gateway);
+                        } catch (MalformedURLException e) {
+                            logging.logToError("Skipping invalid gateway URL for " + domain + ": " + url);
+                        }
                     }
                 }
 
                 config.domainConfigs.put(domain, domainConfig);
             }
 
+            config.publishRouting();
+
             if (!config.domainConfigs.isEmpty()) {
                 logging.logToOutput("Loaded " + config.domainConfigs.size() + " domain mapping(s) from project file");
             }
@@ -244,6 +424,19 @@ public class AwsIpRotatorExtension implements BurpExtension {
         JPanel awsConfigPanel = createAWSConfigPanel();
         tabbedPane.addTab("AWS Configuration", awsConfigPanel);
 
+        // Tab 4: Live metrics
+        metricsPanel = new MetricsPanel(config.metrics);
+        metricsPanel.start(executionService.scheduler());
+        tabbedPane.addTab("Metrics", metricsPanel);
+
+        // Tab 5: Gateway jobs
+        jobsPanel = new JobsPanel(jobQueue, () -> {
+            AwsIpRotatorManager manager = awsManager;
+            return manager != null ? manager.getScheduler().describe() : null;
+        });
+        jobsPanel.start();
+        tabbedPane.addTab("Jobs", jobsPanel);
+
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
     }
 
@@ -253,25 +446,176 @@ public class AwsIpRotatorExtension implements BurpExtension {
     private JPanel createMappingsPanel() {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
 
-        // Top panel with enable checkbox and preserve host option
-        JPanel topPanel = new JPanel(new GridLayout(2, 1, 5, 5));
+        // Top panel with enable checkbox, preserve host option, rewrite logging, circuit breaker, rate limits and retries
+        JPanel topPanel = new JPanel(new GridLayout(6, 1, 5, 5));
         JCheckBox enabledCheckbox = new JCheckBox("✓ ENABLE IP ROTATION (Master On/Off Switch)", config.enabled);
         enabledCheckbox.setFont(enabledCheckbox.getFont().deriveFont(Font.BOLD));
         enabledCheckbox.setToolTipText("Check this box to activate IP rotation through AWS gateways. Uncheck to disable all request rewriting.");
         enabledCheckbox.addActionListener(e -> {
             config.enabled = enabledCheckbox.isSelected();
+            config.publishRouting();
             logging.logToOutput("IP rotation " + (config.enabled ? "enabled" : "disabled"));
             saveDomainMappings();
         });
         topPanel.add(enabledCheckbox);
 
+        // The settings below apply in memory at once; publishing and saving wait until they settle
+        settingsSaveTimer = new Timer(SETTINGS_SAVE_DELAY_MS, e -> {
+            config.publishRouting();
+            saveDomainMappings();
+        });
+        settingsSaveTimer.setRepeats(false);
+
         JCheckBox preserveHostCheckbox = new JCheckBox("Preserve original Host in X-Original-Host header", config.preserveOriginalHost);
         preserveHostCheckbox.addActionListener(e -> {
             config.preserveOriginalHost = preserveHostCheckbox.isSelected();
-            saveDomainMappings();
+            saveSettingsSoon();
         });
         topPanel.add(preserveHostCheckbox);
 
+        JPanel loggingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        loggingPanel.add(new JLabel("Rewrite Logging:"));
+        JComboBox<RewriteLog.Level> logLevelCombo = new JComboBox<>(RewriteLog.Level.values());
+        logLevelCombo.setSelectedItem(rewriteLog.getLevel());
+        logLevelCombo.setToolTipText(rewriteLog.getLevel().getDescription());
+        loggingPanel.add(logLevelCombo);
+        loggingPanel.add(new JLabel("N:"));
+        JSpinner logEverySpinner = new JSpinner(new SpinnerNumberModel(rewriteLog.getEvery(), 1, 100000, 1));
+        logEverySpinner.setToolTipText("Summary: seconds between summaries. Sampled: log 1 in N rewrites.");
+        loggingPanel.add(logEverySpinner);
+        JButton recentRewritesButton = new JButton("Show Recent Rewrites");
+        loggingPanel.add(recentRewritesButton);
+        JButton metricsButton = new JButton("Show Metrics");
+        loggingPanel.add(metricsButton);
+        topPanel.add(loggingPanel);
+
+        logLevelCombo.addActionListener(e -> {
+            RewriteLog.Level level = (RewriteLog.Level) logLevelCombo.getSelectedItem();
+            rewriteLog.setLevel(level);
+            logLevelCombo.setToolTipText(level.getDescription());
+            saveSettingsSoon();
+        });
+        logEverySpinner.addChangeListener(e -> {
+            rewriteLog.setEvery((Integer) logEverySpinner.getValue());
+            saveSettingsSoon();
+        });
+        recentRewritesButton.addActionListener(e -> showRecentRewrites());
+        metricsButton.addActionListener(e -> showMetrics());
+
+        // Circuit breaker settings (shared by all gateways)
+        JPanel breakerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        breakerPanel.add(new JLabel("Circuit Breaker: open after"));
+        JSpinner breakerFailuresSpinner = new JSpinner(new SpinnerNumberModel(config.breakerSettings.failureThreshold, 1, 1000, 1));
+        breakerPanel.add(breakerFailuresSpinner);
+        breakerPanel.add(new JLabel("consecutive failures or responses slower than"));
+        JSpinner breakerLatencySpinner = new JSpinner(new SpinnerNumberModel((int) config.breakerSettings.latencyThresholdMs, 0, 600000, 100));
+        breakerLatencySpinner.setToolTipText("Milliseconds (0 = ignore latency)");
+        breakerPanel.add(breakerLatencySpinner);
+        breakerPanel.add(new JLabel("ms; stay open"));
+        JSpinner breakerOpenSpinner = new JSpinner(new SpinnerNumberModel((int) config.breakerSettings.openSeconds, 1, 3600, 1));
+        breakerPanel.add(breakerOpenSpinner);
+        breakerPanel.add(new JLabel("s; close after"));
+        JSpinner breakerTrialsSpinner = new JSpinner(new SpinnerNumberModel(config.breakerSettings.trialRequests, 1, 100, 1));
+        breakerPanel.add(breakerTrialsSpinner);
+        breakerPanel.add(new JLabel("successful trial requests"));
+        topPanel.add(breakerPanel);
+
+        javax.swing.event.ChangeListener breakerListener = e -> {
+            config.breakerSettings = new CircuitBreaker.Settings(
+                (Integer) breakerFailuresSpinner.getValue(),
+                (Integer) breakerLatencySpinner.getValue(),
+                (Integer) breakerOpenSpinner.getValue(),
+                (Integer) breakerTrialsSpinner.getValue());
+            saveSettingsSoon();
+        };
+        breakerFailuresSpinner.addChangeListener(breakerListener);
+        breakerLatencySpinner.addChangeListener(breakerListener);
+        breakerOpenSpinner.addChangeListener(breakerListener);
+        breakerTrialsSpinner.addChangeListener(breakerListener);
+
+        // Rate limits (per gateway host and per region, shared by all domains)
+        RateLimiter.Settings rateLimits = config.rateLimiter.getSettings();
+        JPanel rateLimitPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        rateLimitPanel.add(new JLabel("Rate Limit: per gateway"));
+        JSpinner gatewayRateSpinner = new JSpinner(new SpinnerNumberModel(rateLimits.gatewayPerSecond, 0, 100000, 1));
+        gatewayRateSpinner.setToolTipText("Requests per second per gateway (0 = unlimited)");
+        rateLimitPanel.add(gatewayRateSpinner);
+        rateLimitPanel.add(new JLabel("req/s burst"));
+        JSpinner gatewayBurstSpinner = new JSpinner(new SpinnerNumberModel(rateLimits.gatewayBurst, 1, 100000, 1));
+        rateLimitPanel.add(gatewayBurstSpinner);
+        rateLimitPanel.add(new JLabel("; per region"));
+        JSpinner regionRateSpinner = new JSpinner(new SpinnerNumberModel(rateLimits.regionPerSecond, 0, 100000, 1));
+        regionRateSpinner.setToolTipText("Requests per second across all gateways in a region (0 = unlimited)");
+        rateLimitPanel.add(regionRateSpinner);
+        rateLimitPanel.add(new JLabel("req/s burst"));
+        JSpinner regionBurstSpinner = new JSpinner(new SpinnerNumberModel(rateLimits.regionBurst, 1, 100000, 1));
+        rateLimitPanel.add(regionBurstSpinner);
+        rateLimitPanel.add(new JLabel("; when saturated"));
+        JComboBox<RateLimiter.SaturatedAction> saturatedCombo = new JComboBox<>(RateLimiter.SaturatedAction.values());
+        saturatedCombo.setSelectedItem(rateLimits.onSaturated);
+        saturatedCombo.setToolTipText(rateLimits.onSaturated.getDescription());
+        rateLimitPanel.add(saturatedCombo);
+        rateLimitPanel.add(new JLabel("max"));
+        JSpinner maxWaitSpinner = new JSpinner(new SpinnerNumberModel((int) rateLimits.maxWaitMs, 0, 600000, 100));
+        maxWaitSpinner.setToolTipText("Longest a request waits for a permit, in milliseconds");
+        rateLimitPanel.add(maxWaitSpinner);
+        rateLimitPanel.add(new JLabel("ms"));
+        JLabel rateLimitStatsLabel = new JLabel("(" + config.rateLimiter.describe() + ")");
+        rateLimitPanel.add(rateLimitStatsLabel);
+        topPanel.add(rateLimitPanel);
+
+        Runnable rateLimitListener = () -> {
+            RateLimiter.SaturatedAction onSaturated = (RateLimiter.SaturatedAction) saturatedCombo.getSelectedItem();
+            config.rateLimiter.setSettings(new RateLimiter.Settings(
+                (Integer) gatewayRateSpinner.getValue(),
+                (Integer) gatewayBurstSpinner.getValue(),
+                (Integer) regionRateSpinner.getValue(),
+                (Integer) regionBurstSpinner.getValue(),
+                onSaturated,
+                (Integer) maxWaitSpinner.getValue()));
+            saturatedCombo.setToolTipText(onSaturated.getDescription());
+            saveSettingsSoon(); // the health timer refreshes rateLimitStatsLabel after the publish
+        };
+        gatewayRateSpinner.addChangeListener(e -> rateLimitListener.run());
+        gatewayBurstSpinner.addChangeListener(e -> rateLimitListener.run());
+        regionRateSpinner.addChangeListener(e -> rateLimitListener.run());
+        regionBurstSpinner.addChangeListener(e -> rateLimitListener.run());
+        maxWaitSpinner.addChangeListener(e -> rateLimitListener.run());
+        saturatedCombo.addActionListener(e -> rateLimitListener.run());
+
+        // Retry throttled / failed responses through another gateway
+        RetryPolicy.Settings retrySettings = config.retryPolicy.getSettings();
+        JPanel retryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        JCheckBox retryCheckbox = new JCheckBox("Retry 429/502/503/504 through another gateway, up to", retrySettings.enabled);
+        retryPanel.add(retryCheckbox);
+        JSpinner retryMaxSpinner = new JSpinner(new SpinnerNumberModel(retrySettings.maxRetries, 1, 10, 1));
+        retryPanel.add(retryMaxSpinner);
+        retryPanel.add(new JLabel("times; backoff"));
+        JSpinner retryBackoffSpinner = new JSpinner(new SpinnerNumberModel((int) retrySettings.baseBackoffMs, 0, 10000, 50));
+        retryBackoffSpinner.setToolTipText("Base backoff in milliseconds; retry n waits a random time up to base * 2^(n-1). "
+            + "Retries hold up the sending tool, so all retries of one response stop after "
+            + RetryPolicy.MAX_RETRY_DELAY_MS / 1000 + " s");
+        retryPanel.add(retryBackoffSpinner);
+        retryPanel.add(new JLabel("ms; budget"));
+        JSpinner retryBudgetSpinner = new JSpinner(new SpinnerNumberModel(retrySettings.budgetPercent, 1, 100, 1));
+        retryBudgetSpinner.setToolTipText("Retries allowed as a percentage of normal responses, so outages don't multiply traffic");
+        retryPanel.add(retryBudgetSpinner);
+        retryPanel.add(new JLabel("% of requests"));
+        topPanel.add(retryPanel);
+
+        Runnable retryListener = () -> {
+            config.retryPolicy.setSettings(new RetryPolicy.Settings(
+                retryCheckbox.isSelected(),
+                (Integer) retryMaxSpinner.getValue(),
+                (Integer) retryBackoffSpinner.getValue(),
+                (Integer) retryBudgetSpinner.getValue()));
+            saveSettingsSoon();
+        };
+        retryCheckbox.addActionListener(e -> retryListener.run());
+        retryMaxSpinner.addChangeListener(e -> retryListener.run());
+        retryBackoffSpinner.addChangeListener(e -> retryListener.run());
+        retryBudgetSpinner.addChangeListener(e -> retryListener.run());
+
         panel.add(topPanel, BorderLayout.NORTH);
 
         // Split pane: domains list on left, gateway details on right
@@ -340,8 +684,27 @@ public class AwsIpRotatorExtension implements BurpExtension {
         strategyPanel.add(new JLabel("Rotation Strategy:"));
         JComboBox<DomainConfig.RotationStrategy> strategyCombo = new JComboBox<>(DomainConfig.RotationStrategy.values());
         strategyPanel.add(strategyCombo);
+        strategyPanel.add(new JLabel("Burst:"));
+        JSpinner burstSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+        burstSpinner.setToolTipText("Send N consecutive requests through the same gateway so its TLS connection is reused (1 = rotate every request)");
+        strategyPanel.add(burstSpinner);
         controlPanel.add(strategyPanel, BorderLayout.NORTH);
 
+        // Throughput vs IP diversity for the selected domain's burst setting
+        JPanel burstStatsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JLabel burstStatsLabel = new JLabel(" ");
+        JButton resetBurstStatsButton = new JButton("Reset");
+        resetBurstStatsButton.setToolTipText("Restart the measurement, e.g. after changing the burst size");
+        burstStatsPanel.add(burstStatsLabel);
+        burstStatsPanel.add(resetBurstStatsButton);
+        JPanel retryStatsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JLabel retryStatsLabel = new JLabel(" ");
+        retryStatsPanel.add(retryStatsLabel);
+        JPanel domainStatsPanel = new JPanel(new GridLayout(2, 1));
+        domainStatsPanel.add(burstStatsPanel);
+        domainStatsPanel.add(retryStatsPanel);
+        controlPanel.add(domainStatsPanel, BorderLayout.CENTER);
+
         // Gateway management buttons
         JPanel gatewayButtonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton addGatewayButton = new JButton("Add Gateway");
@@ -365,7 +728,8 @@ public class AwsIpRotatorExtension implements BurpExtension {
                     String domain = (String) mappingsTableModel.getValueAt(row, 0);
                     DomainConfig dc = config.domainConfigs.get(domain);
                     if (dc != null) {
-                        updateGatewayDetails(dc, gatewayListModel, strategyCombo);
+                        updateGatewayDetails(dc, gatewayListModel, strategyCombo, burstSpinner, burstStatsLabel,
+                            retryStatsLabel);
                     }
                 }
             }
@@ -380,6 +744,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
                 if (dc != null) {
                     DomainConfig.RotationStrategy newStrategy = (DomainConfig.RotationStrategy) strategyCombo.getSelectedItem();
                     dc.setStrategy(newStrategy);
+                    config.publishRouting();
                     mappingsTableModel.setValueAt(newStrategy.toString(), row, 2);
                     logging.logToOutput("Changed rotation strategy for " + domain + " to " + newStrategy);
                     saveDomainMappings();
@@ -387,10 +752,39 @@ public class AwsIpRotatorExtension implements BurpExtension {
             }
         });
 
+        // Burst size change handler
+        burstSpinner.addChangeListener(e -> {
+            int row = domainsTable.getSelectedRow();
+            if (row >= 0) {
+                String domain = (String) mappingsTableModel.getValueAt(row, 0);
+                DomainConfig dc = config.domainConfigs.get(domain);
+                int burstSize = (Integer) burstSpinner.getValue();
+                if (dc != null && dc.getBurstSize() != burstSize) {
+                    dc.setBurstSize(burstSize);
+                    dc.resetBurstStats();
+                    config.publishRouting();
+                    burstStatsLabel.setText(dc.getBurstStats());
+                    logging.logToOutput("Changed burst size for " + domain + " to " + burstSize);
+                    saveDomainMappings();
+                }
+            }
+        });
+
+        resetBurstStatsButton.addActionListener(e -> {
+            int row = domainsTable.getSelectedRow();
+            if (row >= 0) {
+                DomainConfig dc = config.domainConfigs.get((String) mappingsTableModel.getValueAt(row, 0));
+                if (dc != null) {
+                    dc.resetBurstStats();
+                    burstStatsLabel.setText(dc.getBurstStats());
+                }
+            }
+        });
+
         // Add domain button
         addDomainButton.addActionListener(e -> {
             String domain = JOptionPane.showInputDialog(mainPanel,
-                "Enter domain name (e.g., api.example.com):",
+                "Enter domain name (e.g., api.example.com or *.example.com):",
                 "Add Domain",
                 JOptionPane.PLAIN_MESSAGE);
 
@@ -404,6 +798,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
                 } else {
                     DomainConfig dc = new DomainConfig(domain);
                     config.domainConfigs.put(domain, dc);
+                    config.publishRouting();
                     mappingsTableModel.addRow(new Object[]{domain, 0, dc.getStrategy().toString()});
                     logging.logToOutput("Added domain: " + domain);
                     saveDomainMappings();
@@ -423,8 +818,11 @@ public class AwsIpRotatorExtension implements BurpExtension {
 
                 if (confirm == JOptionPane.YES_OPTION) {
                     config.domainConfigs.remove(domain);
+                    config.publishRouting();
                     mappingsTableModel.removeRow(row);
                     gatewayListModel.clear();
+                    burstStatsLabel.setText(" ");
+                    retryStatsLabel.setText(" ");
                     logging.logToOutput("Removed domain: " + domain);
                     saveDomainMappings();
                 }
@@ -446,8 +844,11 @@ public class AwsIpRotatorExtension implements BurpExtension {
 
                 if (confirm == JOptionPane.YES_OPTION) {
                     config.domainConfigs.clear();
+                    config.publishRouting();
                     mappingsTableModel.setRowCount(0);
                     gatewayListModel.clear();
+                    burstStatsLabel.setText(" ");
+                    retryStatsLabel.setText(" ");
                     logging.logToOutput("Cleared all domain configurations");
                     saveDomainMappings();
                 }
@@ -481,6 +882,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
                     if (gatewayIndex < gateways.size()) {
                         GatewayConfig gateway = gateways.get(gatewayIndex);
                         dc.removeGateway(gateway);
+                        config.publishRouting();
                         gatewayListModel.remove(gatewayIndex);
                         mappingsTableModel.setValueAt(dc.getGatewayCount(), row, 1);
                         logging.logToOutput("Removed gateway from " + domain + ": " + gateway.getGatewayUrl());
@@ -516,6 +918,21 @@ public class AwsIpRotatorExtension implements BurpExtension {
             }
         });
 
+        // Periodically refresh gateway health and burst measurements for the selected domain
+        gatewayHealthTimer = new Timer(2000, e -> {
+            int row = domainsTable.getSelectedRow();
+            if (row >= 0) {
+                DomainConfig dc = config.domainConfigs.get((String) mappingsTableModel.getValueAt(row, 0));
+                if (dc != null) {
+                    renderGatewayList(dc, gatewayListModel);
+                    burstStatsLabel.setText(dc.getBurstStats());
+                    retryStatsLabel.setText(dc.getRetryStats());
+                }
+            }
+            rateLimitStatsLabel.setText("(" + config.rateLimiter.describe() + ")");
+        });
+        gatewayHealthTimer.start();
+
         // Populate table with loaded domain mappings
         for (Map.Entry<String, DomainConfig> entry : config.domainConfigs.entrySet()) {
             DomainConfig dc = entry.getValue();
@@ -529,17 +946,92 @@ public class AwsIpRotatorExtension implements BurpExtension {
         return panel;
     }
 
+    /**
+     * Show the most recent request rewrites held by the rewrite log
+     */
+    private void showRecentRewrites() {
+        List<String> lines = rewriteLog.recent(RewriteLog.CAPACITY);
+        JTextArea textArea = new JTextArea(lines.isEmpty()
+            ? "No rewrites recorded (is rewrite logging set to Off?)"
+            : String.join("\n", lines));
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(900, 400));
+        JOptionPane.showMessageDialog(mainPanel,
+            scrollPane,
+            "Recent Rewrites (" + lines.size() + ")",
+            JOptionPane.PLAIN_MESSAGE);
+    }
+
+    /**
+     * Show request, byte, status and latency metrics per domain and per gateway
+     */
+    private void showMetrics() {
+        StringBuilder text = new StringBuilder();
+        text.append(TrafficMetrics.header("Domain")).append('\n');
+        for (Map.Entry<String, TrafficMetrics> entry : config.metrics.getDomainMetrics().entrySet()) {
+            text.append(entry.getValue().describe(entry.getKey())).append('\n');
+        }
+        text.append('\n').append(TrafficMetrics.header("Region")).append('\n');
+        for (Map.Entry<String, TrafficMetrics> entry : config.metrics.getRegionMetrics().entrySet()) {
+            text.append(entry.getValue().describe(entry.getKey())).append('\n');
+        }
+        text.append('\n').append(TrafficMetrics.header("Gateway")).append('\n');
+        for (Map.Entry<String, TrafficMetrics> entry : config.metrics.getGatewayMetrics().entrySet()) {
+            text.append(entry.getValue().describe(entry.getKey())).append('\n');
+        }
+
+        JTextArea textArea = new JTextArea(text.toString());
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(1200, 400));
+        JOptionPane.showMessageDialog(mainPanel,
+            scrollPane,
+            "Gateway Metrics",
+            JOptionPane.PLAIN_MESSAGE);
+    }
+
     /**
      * Update gateway details panel for selected domain
      */
     private void updateGatewayDetails(DomainConfig dc, DefaultListModel<String> gatewayListModel,
-                                      JComboBox<DomainConfig.RotationStrategy> strategyCombo) {
+                                      JComboBox<DomainConfig.RotationStrategy> strategyCombo,
+                                      JSpinner burstSpinner, JLabel burstStatsLabel, JLabel retryStatsLabel) {
         gatewayListModel.clear();
-        for (GatewayConfig gateway : dc.getGateways()) {
-            gatewayListModel.addElement(String.format("%s (%s) [weight: %d%%]",
-                gateway.getGatewayUrl(), gateway.getRegion(), gateway.getWeight()));
-        }
+        renderGatewayList(dc, gatewayListModel);
         strategyCombo.setSelectedItem(dc.getStrategy());
+        burstSpinner.setValue(dc.getBurstSize());
+        burstStatsLabel.setText(dc.getBurstStats());
+        retryStatsLabel.setText(dc.getRetryStats());
+    }
+
+    /**
+     * Show each gateway with its weight and current health, updating rows in place
+     */
+    private void renderGatewayList(DomainConfig dc, DefaultListModel<String> gatewayListModel) {
+        List<GatewayEndpoint> endpoints = dc.getEndpoints();
+        if (gatewayListModel.size() != endpoints.size()) {
+            gatewayListModel.clear();
+        }
+        for (int i = 0; i < endpoints.size(); i++) {
+            GatewayEndpoint endpoint = endpoints.get(i);
+            GatewayConfig gateway = endpoint.getGateway();
+            LatencyTracker latency = endpoint.getLatency();
+            String entry = String.format("%s (%s) [weight: %d%%] - %s, %s, %s, %d in flight",
+                gateway.getGatewayUrl(), gateway.getRegion(), gateway.getWeight(),
+                endpoint.getHealth().describe(), endpoint.getCircuitBreaker().describe(),
+                latency.isMeasured() ? String.format("~%.0f ms", latency.getAverageMillis()) : "latency n/a",
+                endpoint.getOutstanding());
+            if (i < gatewayListModel.size()) {
+                if (!entry.equals(gatewayListModel.get(i))) {
+                    gatewayListModel.set(i, entry);
+                }
+            } else {
+                gatewayListModel.addElement(entry);
+            }
+        }
     }
 
     /**
@@ -559,12 +1051,11 @@ public class AwsIpRotatorExtension implements BurpExtension {
             String region = extractRegionFromUrl(gatewayUrl);
 
             try {
-                new URL(gatewayUrl);
                 GatewayConfig gateway = new GatewayConfig(gatewayUrl, region);
                 dc.addGateway(gateway);
+                config.publishRouting();
                 mappingsTableModel.setValueAt(dc.getGatewayCount(), row, 1);
-                gatewayListModel.addElement(String.format("%s (%s) [weight: %d%%]",
-                    gateway.getGatewayUrl(), gateway.getRegion(), gateway.getWeight()));
+                renderGatewayList(dc, gatewayListModel);
                 logging.logToOutput("Added gateway to " + dc.getDomain() + ": " + gatewayUrl + " (region: " + region + ")");
                 saveDomainMappings();
             } catch (MalformedURLException ex) {
@@ -595,15 +1086,14 @@ public class AwsIpRotatorExtension implements BurpExtension {
                     throw new NumberFormatException();
                 }
 
-                // Remove old and add new with updated weight
-                dc.removeGateway(oldGateway);
+                // Replace in place with updated weight (keeps position and health)
                 GatewayConfig newGateway = new GatewayConfig(oldGateway.getGatewayUrl(),
                     oldGateway.getRegion(), weight);
-                dc.addGateway(newGateway);
+                dc.updateGateway(newGateway);
+                config.publishRouting();
 
                 // Update display
-                gatewayListModel.set(gatewayIndex, String.format("%s (%s) [weight: %d%%]",
-                    newGateway.getGatewayUrl(), newGateway.getRegion(), newGateway.getWeight()));
+                renderGatewayList(dc, gatewayListModel);
 
                 logging.logToOutput("Updated gateway weight for " + dc.getDomain() + ": " + oldGateway.getGatewayUrl() + " to " + weight + "%");
                 saveDomainMappings();
@@ -717,7 +1207,8 @@ public class AwsIpRotatorExtension implements BurpExtension {
                 // Convert view row to model row (important when table is sorted)
                 int modelRow = gatewaysTable.convertRowIndexToModel(viewRow);
                 String apiId = (String) gatewaysTableModel.getValueAt(modelRow, 0);
-                updateGateway(apiId);
+                String region = (String) gatewaysTableModel.getValueAt(modelRow, 4);
+                updateGateway(apiId, region);
             } else {
                 JOptionPane.showMessageDialog(mainPanel,
                     "Please select a gateway to update",
@@ -755,114 +1246,71 @@ public class AwsIpRotatorExtension implements BurpExtension {
                         gatewayInfo.put("apiId", (String) gatewaysTableModel.getValueAt(modelRow, 0));
                         gatewayInfo.put("name", (String) gatewaysTableModel.getValueAt(modelRow, 1));
                         gatewayInfo.put("region", (String) gatewaysTableModel.getValueAt(modelRow, 4));
-                        gatewayInfo.put("modelRow", String.valueOf(modelRow));
                         gatewaysToDelete.add(gatewayInfo);
                     }
 
-                    // Use SwingWorker to delete gateways in background
-                    SwingWorker<Map<String, Object>, Void> worker = new SwingWorker<>() {
-                        @Override
-                        protected Map<String, Object> doInBackground() {
-                            Map<String, Object> result = new HashMap<>();
-                            List<String> successDeletes = Collections.synchronizedList(new ArrayList<>());
-                            List<String> failures = Collections.synchronizedList(new ArrayList<>());
-
-                            // Create executor service for parallel execution
-                            ExecutorService executor = Executors.newFixedThreadPool(Math.min(gatewaysToDelete.size(), 10));
-                            List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-                            for (Map<String, String> gateway : gatewaysToDelete) {
-                                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                                    String apiId = gateway.get("apiId");
-                                    String name = gateway.get("name");
-                                    String region = gateway.get("region");
-
-                                    try {
-                                        if (awsManager != null && awsManager.deleteGatewayInRegion(apiId, region)) {
-                                            successDeletes.add(apiId);
-                                            logging.logToOutput("Deleted gateway: " + apiId + " in region " + region);
-                                        } else {
-                                            failures.add(name + " (" + apiId + ") - " + region);
-                                            logging.logToError("Failed to delete gateway: " + apiId + " in region " + region);
-                                        }
-                                    } catch (Exception e) {
-                                        failures.add(name + " (" + apiId + ") - " + region + ": " + e.getMessage());
-                                        logging.logToError("Exception deleting gateway " + apiId + ": " + e.getMessage());
-                                    }
-                                }, executor);
+                    // Queue every delete as a job (paced to the delete quota); summarize on the EDT once all finish
+                    List<String> successDeletes = Collections.synchronizedList(new ArrayList<>());
+                    List<String> failures = Collections.synchronizedList(new ArrayList<>());
+                    AwsIpRotatorManager manager = awsManager;
+                    List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+                    for (Map<String, String> gateway : gatewaysToDelete) {
+                        String apiId = gateway.get("apiId");
+                        String name = gateway.get("name");
+                        String region = gateway.get("region");
+                        if (manager == null) {
+                            failures.add(name + " (" + apiId + ") - " + region + ": not connected to AWS");
+                            continue;
+                        }
 
-                                futures.add(future);
+                        futures.add(jobQueue.delete(apiId, region, ControlPlaneScheduler.Priority.INTERACTIVE).handle((ignored, error) -> {
+                            if (error == null) {
+                                successDeletes.add(apiId);
+                                logging.logToOutput("Deleted gateway: " + apiId + " in region " + region);
+                            } else {
+                                String reason = AwsIpRotatorManager.failureMessage(error);
+                                failures.add(name + " (" + apiId + ") - " + region + ": " + reason);
+                                logging.logToError("Failed to delete gateway: " + apiId + " in region " + region + ": " + reason);
                             }
+                            return null;
+                        }));
+                    }
 
-                            // Wait for all to complete
-                            try {
-                                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-                            } catch (Exception e) {
-                                logging.logToError("Error during parallel gateway deletion: " + e.getMessage());
-                            } finally {
-                                executor.shutdown();
+                    onAllComplete(futures, () -> {
+                        // Remove successfully deleted gateways from table
+                        for (Map<String, String> gateway : gatewaysToDelete) {
+                            String apiId = gateway.get("apiId");
+                            if (successDeletes.contains(apiId)) {
+                                // Find current row index (may have changed)
+                                for (int row = 0; row < gatewaysTableModel.getRowCount(); row++) {
+                                    if (gatewaysTableModel.getValueAt(row, 0).equals(apiId)) {
+                                        gatewaysTableModel.removeRow(row);
+                                        break;
+                                    }
+                                }
                             }
-
-                            result.put("success", successDeletes);
-                            result.put("failures", failures);
-                            return result;
                         }
 
-                        @Override
-                        protected void done() {
-                            try {
-                                Map<String, Object> result = get();
-                                @SuppressWarnings("unchecked")
-                                List<String> successDeletes = (List<String>) result.get("success");
-                                @SuppressWarnings("unchecked")
-                                List<String> failures = (List<String>) result.get("failures");
-
-                                // Remove successfully deleted gateways from table (in reverse order)
-                                for (int i = gatewaysToDelete.size() - 1; i >= 0; i--) {
-                                    Map<String, String> gateway = gatewaysToDelete.get(i);
-                                    String apiId = gateway.get("apiId");
-                                    if (successDeletes.contains(apiId)) {
-                                        int modelRow = Integer.parseInt(gateway.get("modelRow"));
-                                        // Find current row index (may have changed)
-                                        for (int row = 0; row < gatewaysTableModel.getRowCount(); row++) {
-                                            if (gatewaysTableModel.getValueAt(row, 0).equals(apiId)) {
-                                                gatewaysTableModel.removeRow(row);
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
+                        int successCount = successDeletes.size();
+                        int failureCount = failures.size();
 
-                                int successCount = successDeletes.size();
-                                int failureCount = failures.size();
-
-                                // Show summary
-                                if (gatewaysToDelete.size() > 1 || failureCount > 0) {
-                                    String title = (failureCount == 0) ? "Success" : "Partial Success";
-                                    int messageType = (failureCount == 0) ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
-                                    StringBuilder summary = new StringBuilder(String.format("Deletion complete:\n\nSuccess: %d | Failed: %d", successCount, failureCount));
-                                    if (failureCount > 0) {
-                                        summary.append("\n\nFailed deletions:\n");
-                                        for (String failure : failures) {
-                                            summary.append("✗ ").append(failure).append("\n");
-                                        }
-                                    }
-                                    JOptionPane.showMessageDialog(mainPanel, summary.toString(), title, messageType);
+                        // Show summary
+                        if (gatewaysToDelete.size() > 1 || failureCount > 0) {
+                            String title = (failureCount == 0) ? "Success" : "Partial Success";
+                            int messageType = (failureCount == 0) ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+                            StringBuilder summary = new StringBuilder(String.format("Deletion complete:\n\nSuccess: %d | Failed: %d", successCount, failureCount));
+                            if (failureCount > 0) {
+                                summary.append("\n\nFailed deletions:\n");
+                                for (String failure : failures) {
+                                    summary.append("✗ ").append(failure).append("\n");
                                 }
-
-                                logging.logToOutput("Gateway deletion complete: " + successCount + " succeeded, " + failureCount + " failed");
-
-                            } catch (Exception ex) {
-                                logging.logToError("Failed to process gateway deletion results: " + ex.getMessage());
-                                JOptionPane.showMessageDialog(mainPanel,
-                                    "Failed to delete gateways: " + ex.getMessage(),
-                                    "Error",
-                                    JOptionPane.ERROR_MESSAGE);
                             }
+                            JOptionPane.showMessageDialog(mainPanel, summary.toString(), title, messageType);
                         }
-                    };
 
-                    worker.execute();
+                        logging.logToOutput("Gateway deletion complete: " + successCount + " succeeded, " + failureCount + " failed");
+                    });
                 }
             } else {
                 JOptionPane.showMessageDialog(mainPanel,
@@ -873,8 +1321,14 @@ public class AwsIpRotatorExtension implements BurpExtension {
         });
         buttonPanel.add(deleteButton);
 
+        gatewaysStatusLabel = new JLabel(" ");
+        buttonPanel.add(gatewaysStatusLabel);
+
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
+        // Open instantly from the cached inventory; it is reconciled in the background once connected
+        showInventory();
+
         return panel;
     }
 
@@ -978,14 +1432,19 @@ public class AwsIpRotatorExtension implements BurpExtension {
         gbc.anchor = GridBagConstraints.CENTER;
         JButton connectButton = new JButton("Test Connection to AWS");
         connectButton.addActionListener(e -> {
-            awsManager = new AwsIpRotatorManager();
-            boolean success = false;
+            jobQueue.disconnect();
+            if (awsManager != null) {
+                awsManager.close();
+            }
+            AwsIpRotatorManager manager = new AwsIpRotatorManager(executionService);
+            awsManager = manager;
+            CompletableFuture<Boolean> connected;
             int authMethod = authMethodCombo.getSelectedIndex();
             String region = (String) regionCombo.getSelectedItem();
 
             switch (authMethod) {
                 case 0: // Default
-                    success = awsManager.initializeWithDefaultCredentials(region);
+                    connected = manager.initializeWithDefaultCredentials(region);
                     break;
                 case 1: // Profile
                     String profile = profileField.getText().trim();
@@ -996,7 +1455,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
                             JOptionPane.ERROR_MESSAGE);
                         return;
                     }
-                    success = awsManager.initializeWithProfile(profile, region);
+                    connected = manager.initializeWithProfile(profile, region);
                     break;
                 case 2: // Keys
                     String accessKey = accessKeyField.getText().trim();
@@ -1008,23 +1467,39 @@ public class AwsIpRotatorExtension implements BurpExtension {
                             JOptionPane.ERROR_MESSAGE);
                         return;
                     }
-                    success = awsManager.initializeWithCredentials(accessKey, secretKey, region);
+                    connected = manager.initializeWithCredentials(accessKey, secretKey, region);
                     break;
+                default:
+                    return;
             }
 
-            if (success) {
-                logging.logToOutput("Successfully connected to AWS in region: " + region);
-                JOptionPane.showMessageDialog(mainPanel,
-                    "Successfully connected to AWS!",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                logging.logToError("Failed to connect to AWS: " + awsManager.getLastError());
-                JOptionPane.showMessageDialog(mainPanel,
-                    "Failed to connect: " + awsManager.getLastError(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            // The credential check is an AWS call; report its outcome on the EDT when it completes
+            connectButton.setEnabled(false);
+            connectButton.setText("Connecting...");
+            connected.thenAccept(success -> SwingUtilities.invokeLater(() -> {
+                connectButton.setEnabled(true);
+                connectButton.setText("Test Connection to AWS");
+                if (manager != awsManager) {
+                    return; // superseded by a newer connection attempt
+                }
+                if (success) {
+                    logging.logToOutput("Successfully connected to AWS in region: " + region);
+                    // The credentials may belong to another account: rescan every region in the background
+                    gatewayInventory.invalidate();
+                    executionService.scheduler().execute(this::maintainGatewayInventory);
+                    jobQueue.connect(manager);
+                    JOptionPane.showMessageDialog(mainPanel,
+                        "Successfully connected to AWS!",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    logging.logToError("Failed to connect to AWS: " + manager.getLastError());
+                    JOptionPane.showMessageDialog(mainPanel,
+                        "Failed to connect: " + manager.getLastError(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }));
         });
         panel.add(connectButton, gbc);
 
@@ -1081,44 +1556,159 @@ public class AwsIpRotatorExtension implements BurpExtension {
 
         // Clear table immediately
         gatewaysTableModel.setRowCount(0);
-
-        // Use SwingWorker to query in background thread
-        SwingWorker<List<AwsIpRotatorManager.AwsIpRotatorGateway>, Void> worker = new SwingWorker<>() {
+        int generation = ++gatewayRefreshGeneration;
+        gatewayRefreshRunning = true;
+        int regionCount = AwsIpRotatorManager.DISCOVERY_REGIONS.length;
+        AwsIpRotatorManager manager = awsManager;
+        gatewaysStatusLabel.setText("Scanning " + regionCount + " regions...");
+
+        // Regions are scanned concurrently; each page of gateways is appended on the EDT as soon
+        // as it is resolved, so fast regions show up immediately
+        AtomicInteger found = new AtomicInteger();
+        AtomicInteger regionsFinished = new AtomicInteger();
+        AtomicInteger regionsFailed = new AtomicInteger();
+        Map<String, List<AwsIpRotatorManager.AwsIpRotatorGateway>> foundByRegion = new ConcurrentHashMap<>();
+        manager.streamGatewaysAllRegions(new AwsIpRotatorManager.DiscoveryListener() {
             @Override
-            protected List<AwsIpRotatorManager.AwsIpRotatorGateway> doInBackground() {
-                // This runs in background thread - won't freeze UI
-                return awsManager.listGatewaysAllRegions();
+            public void gatewaysFound(String region, List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways) {
+                found.addAndGet(gateways.size());
+                foundByRegion.computeIfAbsent(region, r -> Collections.synchronizedList(new ArrayList<>()))
+                    .addAll(gateways);
+                showScanProgress(gateways);
             }
 
             @Override
-            protected void done() {
-                try {
-                    // This runs on UI thread after background work completes
-                    List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways = get();
+            public void regionFinished(String region, Throwable error) {
+                List<AwsIpRotatorManager.AwsIpRotatorGateway> rows = Collections.emptyList();
+                if (error == null) {
+                    gatewayInventory.replaceRegion(region,
+                        foundByRegion.getOrDefault(region, Collections.emptyList()), System.currentTimeMillis());
+                } else {
+                    // Regions we can't reach keep showing their cached gateways
+                    regionsFailed.incrementAndGet();
+                    rows = gatewayInventory.inRegion(region);
+                    found.addAndGet(rows.size());
+                }
+                regionsFinished.incrementAndGet();
+                showScanProgress(rows);
+            }
 
+            private void showScanProgress(List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways) {
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != gatewayRefreshGeneration) {
+                        return;
+                    }
                     for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : gateways) {
-                        gatewaysTableModel.addRow(new Object[]{
-                            gateway.apiId,
-                            gateway.name,
-                            gateway.targetUrl,
-                            gateway.proxyUrl,
-                            gateway.region,
-                            gateway.createdDate.toString()
-                        });
+                        addGatewayRow(gateway);
                     }
+                    gatewaysStatusLabel.setText(String.format("Scanning: %d / %d regions, %d gateway(s) so far",
+                        regionsFinished.get(), regionCount, gatewaysTableModel.getRowCount()));
+                });
+            }
+        }).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (generation != gatewayRefreshGeneration) {
+                return;
+            }
+            gatewayRefreshRunning = false;
+            if (error == null) {
+                int total = found.get();
+                String failedNote = regionsFailed.get() > 0 ? " (" + regionsFailed.get() + " region(s) unreachable)" : "";
+                gatewaysStatusLabel.setText(total + " gateway(s) in " + regionCount + " regions" + failedNote);
+                logging.logToOutput("Refreshed gateway list: " + total + " gateways found across all regions" + failedNote);
+            } else {
+                String reason = AwsIpRotatorManager.failureMessage(error);
+                gatewaysStatusLabel.setText("Refresh failed");
+                logging.logToError("Failed to refresh gateway list: " + reason);
+                JOptionPane.showMessageDialog(mainPanel,
+                    "Failed to refresh gateway list: " + reason,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        }));
+    }
 
-                    logging.logToOutput("Refreshed gateway list: " + gateways.size() + " gateways found across all regions");
-                } catch (Exception ex) {
-                    logging.logToError("Failed to refresh gateway list: " + ex.getMessage());
-                    JOptionPane.showMessageDialog(mainPanel,
-                        "Failed to refresh gateway list: " + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
+    /**
+     * Run a callback on the EDT once every future has completed. The futures are expected to
+     * handle their own failures, so no thread waits on them.
+     */
+    private static void onAllComplete(List<? extends CompletableFuture<?>> futures, Runnable onEdt) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .whenComplete((ignored, error) -> SwingUtilities.invokeLater(onEdt));
+    }
+
+    private void addGatewayRow(AwsIpRotatorManager.AwsIpRotatorGateway gateway) {
+        gatewaysTableModel.addRow(new Object[]{
+            gateway.apiId,
+            gateway.name,
+            gateway.targetUrl,
+            gateway.proxyUrl,
+            gateway.region,
+            gateway.createdDate != null ? gateway.createdDate.toString() : ""
+        });
+    }
+
+    /**
+     * Show the cached gateway inventory in the AWS Gateways table (EDT)
+     */
+    private void showInventory() {
+        if (gatewayRefreshRunning) {
+            return; // the running refresh shows every region when it finishes
+        }
+        gatewaysTableModel.setRowCount(0);
+        for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : gatewayInventory.all()) {
+            addGatewayRow(gateway);
+        }
+        long age = gatewayInventory.oldestScanAgeMillis(System.currentTimeMillis());
+        gatewaysStatusLabel.setText(gatewaysTableModel.getRowCount() + " gateway(s) from cache"
+            + (age < 0 ? ", not scanned yet" : ", oldest region scanned " + TimeUnit.MILLISECONDS.toMinutes(age) + " min ago"));
+    }
+
+    /**
+     * Rescan regions whose inventory is older than the TTL and save the inventory if it
+     * changed (scheduler pool). Regions are scanned concurrently on the async client;
+     * the table is only rebuilt when a scan found drift.
+     */
+    private void maintainGatewayInventory() {
+        AwsIpRotatorManager manager = awsManager;
+        if (manager != null) {
+            for (String region : gatewayInventory.staleRegions(AwsIpRotatorManager.DISCOVERY_REGIONS, System.currentTimeMillis())) {
+                if (!reconcilingRegions.add(region)) {
+                    continue;
                 }
+                manager.listGatewaysInRegionAsync(region, ControlPlaneScheduler.Priority.BACKGROUND).whenComplete((gateways, error) -> {
+                    reconcilingRegions.remove(region);
+                    if (error != null) {
+                        gatewayInventory.deferRegion(region, System.currentTimeMillis());
+                    } else if (gatewayInventory.replaceRegion(region, gateways, System.currentTimeMillis())) {
+                        logging.logToOutput("Gateway inventory for " + region + " reconciled with AWS: "
+                            + gateways.size() + " gateway(s)");
+                        SwingUtilities.invokeLater(this::showInventory);
+                    }
+                });
             }
-        };
+        }
+        try {
+            gatewayInventory.saveIfDirty(api.persistence().extensionData());
+        } catch (Exception e) {
+            logging.logToError("Failed to save gateway inventory: " + e.getMessage());
+        }
+    }
 
-        worker.execute();
+    /**
+     * Apply a job that finished with nobody waiting on it (resumed from the project or
+     * retried from the Jobs tab): show the inventory and, for mass setup creations, add the
+     * gateway to its domain's mappings
+     */
+    private void resumedJobFinished(GatewayJobQueue.Job job, AwsIpRotatorManager.AwsIpRotatorGateway gateway) {
+        logging.logToOutput("Gateway job " + job.id + " finished: " + job.type + " in " + job.region
+            + (gateway != null ? " (" + gateway.apiId + ")" : ""));
+        SwingUtilities.invokeLater(() -> {
+            if (job.type == GatewayJobQueue.Type.CREATE && job.addMapping && gateway != null) {
+                useGatewayForMapping(gateway.targetUrl, gateway.proxyUrl);
+                saveDomainMappings();
+            }
+            showInventory();
+        });
     }
 
     /**
@@ -1155,110 +1745,57 @@ public class AwsIpRotatorExtension implements BurpExtension {
 
                 logging.logToOutput("Creating gateways in " + selectedRegions.size() + " region(s) (parallel execution)...");
 
-                // Use SwingWorker to create gateways in background
-                SwingWorker<Map<String, Object>, Void> worker = new SwingWorker<>() {
-                    @Override
-                    protected Map<String, Object> doInBackground() {
-                        Map<String, Object> result = new HashMap<>();
-                        List<AwsIpRotatorManager.AwsIpRotatorGateway> successGateways = Collections.synchronizedList(new ArrayList<>());
-                        List<String> failures = Collections.synchronizedList(new ArrayList<>());
-
-                        // Create executor service for parallel execution
-                        ExecutorService executor = Executors.newFixedThreadPool(Math.min(selectedRegions.size(), 10));
-                        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-                        for (String region : selectedRegions) {
-                            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                                try {
-                                    logging.logToOutput("Creating AWS IP Rotator gateway for: " + targetUrl + " in region: " + region + " with stage: " + stageName);
-
-                                    AwsIpRotatorManager.AwsIpRotatorGateway gateway = awsManager.createGatewayInRegion(targetUrl, region, stageName);
-
-                                    if (gateway != null) {
-                                        successGateways.add(gateway);
-                                        logging.logToOutput("Created gateway: " + gateway.apiId + " in " + region);
-                                    } else {
-                                        failures.add(region + ": " + awsManager.getLastError());
-                                        logging.logToError("Failed to create gateway in " + region + ": " + awsManager.getLastError());
-                                    }
-                                } catch (Exception e) {
-                                    failures.add(region + ": " + e.getMessage());
-                                    logging.logToError("Exception creating gateway in " + region + ": " + e.getMessage());
-                                }
-                            }, executor);
+                // Queue every region as a job at once; summarize on the EDT once all finish
+                List<AwsIpRotatorManager.AwsIpRotatorGateway> successGateways = Collections.synchronizedList(new ArrayList<>());
+                List<String> failures = Collections.synchronizedList(new ArrayList<>());
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
 
-                            futures.add(future);
-                        }
+                for (String region : selectedRegions) {
+                    logging.logToOutput("Creating AWS IP Rotator gateway for: " + targetUrl + " in region: " + region + " with stage: " + stageName);
 
-                        // Wait for all to complete
-                        try {
-                            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-                        } catch (Exception e) {
-                            logging.logToError("Error during parallel gateway creation: " + e.getMessage());
-                        } finally {
-                            executor.shutdown();
+                    futures.add(jobQueue.create(targetUrl, region, stageName,
+                            ControlPlaneScheduler.Priority.INTERACTIVE, false).handle((gateway, error) -> {
+                        if (error == null) {
+                            successGateways.add(gateway);
+                            logging.logToOutput("Created gateway: " + gateway.apiId + " in " + region);
+                        } else {
+                            String message = AwsIpRotatorManager.failureMessage(error);
+                            failures.add(region + ": " + message);
+                            logging.logToError("Failed to create gateway in " + region + ": " + message);
                         }
+                        return null;
+                    }));
+                }
 
-                        result.put("success", successGateways);
-                        result.put("failures", failures);
-                        return result;
+                onAllComplete(futures, () -> {
+                    // Add successful gateways to table
+                    for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : successGateways) {
+                        addGatewayRow(gateway);
                     }
 
-                    @Override
-                    protected void done() {
-                        try {
-                            Map<String, Object> result = get();
-                            @SuppressWarnings("unchecked")
-                            List<AwsIpRotatorManager.AwsIpRotatorGateway> successGateways = (List<AwsIpRotatorManager.AwsIpRotatorGateway>) result.get("success");
-                            @SuppressWarnings("unchecked")
-                            List<String> failures = (List<String>) result.get("failures");
-
-                            // Add successful gateways to table
-                            for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : successGateways) {
-                                gatewaysTableModel.addRow(new Object[]{
-                                    gateway.apiId,
-                                    gateway.name,
-                                    gateway.targetUrl,
-                                    gateway.proxyUrl,
-                                    gateway.region,
-                                    gateway.createdDate.toString()
-                                });
-                            }
-
-                            // Build summary message
-                            StringBuilder resultMessage = new StringBuilder();
-                            for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : successGateways) {
-                                resultMessage.append("✓ ").append(gateway.region).append(": ").append(gateway.apiId).append("\n");
-                            }
-                            for (String failure : failures) {
-                                resultMessage.append("✗ ").append(failure).append("\n");
-                            }
-
-                            int successCount = successGateways.size();
-                            int failureCount = failures.size();
-
-                            String title = (failureCount == 0) ? "Success" : "Partial Success";
-                            int messageType = (failureCount == 0) ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+                    // Build summary message
+                    StringBuilder resultMessage = new StringBuilder();
+                    for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : successGateways) {
+                        resultMessage.append("✓ ").append(gateway.region).append(": ").append(gateway.apiId).append("\n");
+                    }
+                    for (String failure : failures) {
+                        resultMessage.append("✗ ").append(failure).append("\n");
+                    }
 
-                            JOptionPane.showMessageDialog(mainPanel,
-                                String.format("Gateway creation complete:\n\n%s\nSuccess: %d | Failed: %d",
-                                    resultMessage.toString(), successCount, failureCount),
-                                title,
-                                messageType);
+                    int successCount = successGateways.size();
+                    int failureCount = failures.size();
 
-                            logging.logToOutput("Gateway creation complete: " + successCount + " succeeded, " + failureCount + " failed");
+                    String title = (failureCount == 0) ? "Success" : "Partial Success";
+                    int messageType = (failureCount == 0) ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
 
-                        } catch (Exception ex) {
-                            logging.logToError("Failed to process gateway creation results: " + ex.getMessage());
-                            JOptionPane.showMessageDialog(mainPanel,
-                                "Failed to create gateways: " + ex.getMessage(),
-                                "Error",
-                                JOptionPane.ERROR_MESSAGE);
-                        }
-                    }
-                };
+                    JOptionPane.showMessageDialog(mainPanel,
+                        String.format("Gateway creation complete:\n\n%s\nSuccess: %d | Failed: %d",
+                            resultMessage.toString(), successCount, failureCount),
+                        title,
+                        messageType);
 
-                worker.execute();
+                    logging.logToOutput("Gateway creation complete: " + successCount + " succeeded, " + failureCount + " failed");
+                });
 
             } catch (MalformedURLException ex) {
                 JOptionPane.showMessageDialog(mainPanel,
@@ -1739,6 +2276,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
             // Add gateway to domain
             GatewayConfig gateway = new GatewayConfig(proxyUrl, region);
             dc.addGateway(gateway);
+            config.publishRouting();
 
             // Update or add to table
             if (isNewDomain) {
@@ -1892,6 +2430,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
         }
 
         if (!added.isEmpty()) {
+            config.publishRouting();
             saveDomainMappings();
         }
 
@@ -1940,6 +2479,7 @@ public class AwsIpRotatorExtension implements BurpExtension {
         progressPanel.add(statusLabel, BorderLayout.CENTER);
 
         AtomicBoolean cancelled = new AtomicBoolean(false);
+        Set<CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway>> jobs = ConcurrentHashMap.newKeySet();
         JButton cancelButton = new JButton("Cancel");
         JPanel cancelPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         cancelPanel.add(cancelButton);
@@ -1950,208 +2490,195 @@ public class AwsIpRotatorExtension implements BurpExtension {
         progressDialog.setLocationRelativeTo(mainPanel);
         progressDialog.setResizable(false);
 
-        SwingWorker<Map<String, Object>, String> worker = new SwingWorker<>() {
-            private final AtomicInteger completedOps = new AtomicInteger(0);
+        ControlPlaneScheduler scheduler = awsManager.getScheduler();
+        AtomicInteger completedOps = new AtomicInteger(0);
+        Map<String, AtomicInteger> remainingByRegion = new ConcurrentHashMap<>();
+        Map<String, List<AwsIpRotatorManager.AwsIpRotatorGateway>> successByHost = Collections.synchronizedMap(new LinkedHashMap<>());
+        Map<String, List<String>> failuresByHost = Collections.synchronizedMap(new LinkedHashMap<>());
+        for (HostInfo host : selectedHosts) {
+            successByHost.put(host.domain, Collections.synchronizedList(new ArrayList<>()));
+            failuresByHost.put(host.domain, Collections.synchronizedList(new ArrayList<>()));
+        }
+        for (String region : selectedRegions) {
+            remainingByRegion.put(region, new AtomicInteger(selectedHosts.size()));
+        }
 
-            @Override
-            protected Map<String, Object> doInBackground() {
-                Map<String, Object> result = new HashMap<>();
-                Map<String, List<AwsIpRotatorManager.AwsIpRotatorGateway>> successByHost = Collections.synchronizedMap(new LinkedHashMap<>());
-                Map<String, List<String>> failuresByHost = Collections.synchronizedMap(new LinkedHashMap<>());
+        // Progress is reported from job completions; the label and bar are only touched on the EDT
+        Consumer<String> showProgress = latest -> SwingUtilities.invokeLater(() -> {
+            int done = completedOps.get();
+            progressBar.setValue(done);
+            progressBar.setString(done + " / " + totalOps + massSetupEta(scheduler, remainingByRegion, cancelled.get()));
+            statusLabel.setText(latest);
+            statusLabel.setToolTipText("AWS calls: " + scheduler.describe());
+        });
 
-                for (HostInfo host : selectedHosts) {
-                    successByHost.put(host.domain, Collections.synchronizedList(new ArrayList<>()));
-                    failuresByHost.put(host.domain, Collections.synchronizedList(new ArrayList<>()));
-                }
+        cancelButton.addActionListener(e -> {
+            cancelled.set(true);
+            jobQueue.cancel(jobs);
+            cancelButton.setEnabled(false);
+            cancelButton.setText("Cancelling...");
+            statusLabel.setText("Cancelling remaining operations...");
+        });
 
-                ExecutorService executor = Executors.newFixedThreadPool(Math.min(totalOps, 10));
-                List<CompletableFuture<Void>> futures = new ArrayList<>();
+        progressDialog.setVisible(true);
 
-                for (HostInfo host : selectedHosts) {
-                    for (String region : selectedRegions) {
-                        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                            if (cancelled.get()) {
-                                failuresByHost.get(host.domain).add(region + ": Cancelled");
-                                int done = completedOps.incrementAndGet();
-                                publish(done + " / " + totalOps + " (cancelled)");
-                                return;
-                            }
-                            try {
-                                publish("Creating gateway " + completedOps.get() + "/" + totalOps + ": " + host.domain + " in " + region + "...");
-                                logging.logToOutput("Creating gateway for " + host.domain + " in " + region + "...");
-                                AwsIpRotatorManager.AwsIpRotatorGateway gateway =
-                                    awsManager.createGatewayInRegion(host.targetUrl, region, stageName);
-
-                                if (gateway != null) {
-                                    successByHost.get(host.domain).add(gateway);
-                                    logging.logToOutput("Created gateway for " + host.domain + " in " + region + ": " + gateway.apiId);
-                                } else {
-                                    failuresByHost.get(host.domain).add(region + ": " + awsManager.getLastError());
-                                    logging.logToError("Failed to create gateway for " + host.domain + " in " + region);
-                                }
-                            } catch (Exception e) {
-                                failuresByHost.get(host.domain).add(region + ": " + e.getMessage());
-                                logging.logToError("Exception creating gateway for " + host.domain + " in " + region + ": " + e.getMessage());
-                            }
-                            int done = completedOps.incrementAndGet();
-                            publish(done + " / " + totalOps);
-                        }, executor);
-                        futures.add(future);
+        // Every creation is recorded as a job up front, so a restart resumes the rest. The
+        // queue runs a few per region at a time; Cancel drops the ones not started yet.
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (HostInfo host : selectedHosts) {
+            for (String region : selectedRegions) {
+                CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> job = jobQueue.create(host.targetUrl,
+                    region, stageName, ControlPlaneScheduler.Priority.NORMAL, true);
+                jobs.add(job);
+                futures.add(job.handle((gateway, error) -> {
+                    remainingByRegion.get(region).decrementAndGet();
+                    if (error == null) {
+                        successByHost.get(host.domain).add(gateway);
+                        logging.logToOutput("Created gateway for " + host.domain + " in " + region + ": " + gateway.apiId);
+                    } else {
+                        String message = AwsIpRotatorManager.failureMessage(error);
+                        failuresByHost.get(host.domain).add(region + ": " + message);
+                        if (!(error instanceof CancellationException)) {
+                            logging.logToError("Failed to create gateway for " + host.domain + " in " + region + ": " + message);
+                        }
                     }
-                }
-
-                try {
-                    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-                } catch (Exception e) {
-                    logging.logToError("Error during mass gateway creation: " + e.getMessage());
-                } finally {
-                    executor.shutdown();
-                }
-
-                result.put("successByHost", successByHost);
-                result.put("failuresByHost", failuresByHost);
-                return result;
-            }
-
-            @Override
-            protected void process(List<String> chunks) {
-                // Update progress bar and status label on the EDT
-                String latest = chunks.get(chunks.size() - 1);
-                int done = completedOps.get();
-                progressBar.setValue(done);
-                progressBar.setString(done + " / " + totalOps);
-                statusLabel.setText(latest);
+                    int done = completedOps.incrementAndGet();
+                    showProgress.accept(done + " / " + totalOps + ": " + host.domain + " in " + region);
+                    return null;
+                }));
             }
+        }
+        statusLabel.setText("Queued " + futures.size() + " gateway(s); see the Jobs tab for the queue");
 
-            @Override
-            @SuppressWarnings("unchecked")
-            protected void done() {
-                progressDialog.dispose();
+        onAllComplete(futures, () -> {
+            progressDialog.dispose();
 
-                try {
-                    Map<String, Object> result = get();
-                    Map<String, List<AwsIpRotatorManager.AwsIpRotatorGateway>> successByHost =
-                        (Map<String, List<AwsIpRotatorManager.AwsIpRotatorGateway>>) result.get("successByHost");
-                    Map<String, List<String>> failuresByHost =
-                        (Map<String, List<String>>) result.get("failuresByHost");
-
-                    int totalCreated = 0;
-                    int totalFailed = 0;
-                    int domainsWithGateways = 0;
-
-                    // Process results: create/update domain configs and UI tables
-                    for (HostInfo host : selectedHosts) {
-                        List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways = successByHost.get(host.domain);
-                        if (gateways == null || gateways.isEmpty()) {
-                            totalFailed += failuresByHost.getOrDefault(host.domain, Collections.emptyList()).size();
-                            continue;
-                        }
+            try {
+                int totalCreated = 0;
+                int totalFailed = 0;
+                int domainsWithGateways = 0;
 
-                        domainsWithGateways++;
-                        totalCreated += gateways.size();
+                // Process results: create/update domain configs and UI tables
+                for (HostInfo host : selectedHosts) {
+                    List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways = successByHost.get(host.domain);
+                    if (gateways == null || gateways.isEmpty()) {
                         totalFailed += failuresByHost.getOrDefault(host.domain, Collections.emptyList()).size();
+                        continue;
+                    }
 
-                        // Get or create DomainConfig
-                        DomainConfig dc = config.domainConfigs.get(host.domain);
-                        boolean isNewDomain = (dc == null);
-                        if (dc == null) {
-                            dc = new DomainConfig(host.domain);
-                            config.domainConfigs.put(host.domain, dc);
-                        }
+                    domainsWithGateways++;
+                    totalCreated += gateways.size();
+                    totalFailed += failuresByHost.getOrDefault(host.domain, Collections.emptyList()).size();
 
-                        // Add each gateway to domain config
-                        for (AwsIpRotatorManager.AwsIpRotatorGateway gw : gateways) {
-                            String proxyUrl = gw.proxyUrl;
-                            if (proxyUrl.endsWith("/")) {
-                                proxyUrl = proxyUrl.substring(0, proxyUrl.length() - 1);
-                            }
-                            String region = extractRegionFromUrl(proxyUrl);
-                            GatewayConfig gc = new GatewayConfig(proxyUrl, region);
-                            dc.addGateway(gc);
-
-                            // Add to AWS Gateways table
-                            gatewaysTableModel.addRow(new Object[]{
-                                gw.apiId, gw.name, gw.targetUrl, gw.proxyUrl, gw.region,
-                                gw.createdDate.toString()
-                            });
-                        }
+                    // Get or create DomainConfig
+                    DomainConfig dc = config.domainConfigs.get(host.domain);
+                    boolean isNewDomain = (dc == null);
+                    if (dc == null) {
+                        dc = new DomainConfig(host.domain);
+                        config.domainConfigs.put(host.domain, dc);
+                    }
 
-                        // Update or add to Domain Mappings table
-                        if (isNewDomain) {
-                            mappingsTableModel.addRow(new Object[]{
-                                host.domain, dc.getGatewayCount(), dc.getStrategy().toString()
-                            });
-                        } else {
-                            for (int i = 0; i < mappingsTableModel.getRowCount(); i++) {
-                                if (host.domain.equals(mappingsTableModel.getValueAt(i, 0))) {
-                                    mappingsTableModel.setValueAt(dc.getGatewayCount(), i, 1);
-                                    break;
-                                }
-                            }
+                    // Add each gateway to domain config
+                    for (AwsIpRotatorManager.AwsIpRotatorGateway gw : gateways) {
+                        String proxyUrl = gw.proxyUrl;
+                        if (proxyUrl.endsWith("/")) {
+                            proxyUrl = proxyUrl.substring(0, proxyUrl.length() - 1);
                         }
-                    }
+                        String region = extractRegionFromUrl(proxyUrl);
+                        GatewayConfig gc = new GatewayConfig(proxyUrl, region);
+                        dc.addGateway(gc);
 
-                    saveDomainMappings();
+                        // Add to AWS Gateways table
+                        addGatewayRow(gw);
+                    }
 
-                    // Build summary
-                    StringBuilder summary = new StringBuilder("Mass Setup Complete:\n\n");
-                    for (HostInfo host : selectedHosts) {
-                        List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways = successByHost.get(host.domain);
-                        List<String> failures = failuresByHost.getOrDefault(host.domain, Collections.emptyList());
-
-                        if (gateways != null && !gateways.isEmpty()) {
-                            StringBuilder regions = new StringBuilder();
-                            for (int i = 0; i < gateways.size(); i++) {
-                                if (i > 0) regions.append(", ");
-                                regions.append(gateways.get(i).region);
+                    // Update or add to Domain Mappings table
+                    if (isNewDomain) {
+                        mappingsTableModel.addRow(new Object[]{
+                            host.domain, dc.getGatewayCount(), dc.getStrategy().toString()
+                        });
+                    } else {
+                        for (int i = 0; i < mappingsTableModel.getRowCount(); i++) {
+                            if (host.domain.equals(mappingsTableModel.getValueAt(i, 0))) {
+                                mappingsTableModel.setValueAt(dc.getGatewayCount(), i, 1);
+                                break;
                             }
-                            summary.append("+ ").append(host.domain).append(": ")
-                                .append(gateways.size()).append(" gateway(s) (").append(regions).append(")\n");
-                        }
-                        for (String failure : failures) {
-                            summary.append("x ").append(host.domain).append(": Failed in ").append(failure).append("\n");
                         }
                     }
+                }
+
+                config.publishRouting();
+                saveDomainMappings();
 
-                    summary.append("\nTotal: ").append(totalCreated).append(" gateway(s) created across ")
-                        .append(domainsWithGateways).append(" domain(s)");
-                    if (totalFailed > 0) {
-                        summary.append(", ").append(totalFailed).append(" failed");
+                // Build summary
+                StringBuilder summary = new StringBuilder("Mass Setup Complete:\n\n");
+                for (HostInfo host : selectedHosts) {
+                    List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways = successByHost.get(host.domain);
+                    List<String> failures = failuresByHost.getOrDefault(host.domain, Collections.emptyList());
+
+                    if (gateways != null && !gateways.isEmpty()) {
+                        StringBuilder regions = new StringBuilder();
+                        for (int i = 0; i < gateways.size(); i++) {
+                            if (i > 0) regions.append(", ");
+                            regions.append(gateways.get(i).region);
+                        }
+                        summary.append("+ ").append(host.domain).append(": ")
+                            .append(gateways.size()).append(" gateway(s) (").append(regions).append(")\n");
                     }
-                    if (cancelled.get()) {
-                        summary.append("\n\n(Operation was cancelled)");
+                    for (String failure : failures) {
+                        summary.append("x ").append(host.domain).append(": Failed in ").append(failure).append("\n");
                     }
+                }
 
-                    String title = (totalFailed == 0) ? "Mass Setup Complete" : "Mass Setup Complete (with errors)";
-                    int messageType = (totalFailed == 0) ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
-                    JOptionPane.showMessageDialog(mainPanel, summary.toString(), title, messageType);
+                summary.append("\nTotal: ").append(totalCreated).append(" gateway(s) created across ")
+                    .append(domainsWithGateways).append(" domain(s)");
+                if (totalFailed > 0) {
+                    summary.append(", ").append(totalFailed).append(" failed");
+                    summary.append("\nFailed creations stay in the Jobs tab, where they can be retried");
+                }
+                if (cancelled.get()) {
+                    summary.append("\n\n(Operation was cancelled)");
+                }
 
-                    logging.logToOutput("Mass gateway setup complete: " + totalCreated + " created, " + totalFailed + " failed");
+                String title = (totalFailed == 0) ? "Mass Setup Complete" : "Mass Setup Complete (with errors)";
+                int messageType = (totalFailed == 0) ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+                JOptionPane.showMessageDialog(mainPanel, summary.toString(), title, messageType);
 
-                } catch (Exception ex) {
-                    logging.logToError("Failed to process mass gateway setup results: " + ex.getMessage());
-                    JOptionPane.showMessageDialog(mainPanel,
-                        "Failed during mass gateway setup: " + ex.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        };
+                logging.logToOutput("Mass gateway setup complete: " + totalCreated + " created, " + totalFailed + " failed");
 
-        cancelButton.addActionListener(e -> {
-            cancelled.set(true);
-            cancelButton.setEnabled(false);
-            cancelButton.setText("Cancelling...");
-            statusLabel.setText("Cancelling remaining operations...");
+            } catch (Exception ex) {
+                logging.logToError("Failed to process mass gateway setup results: " + ex.getMessage());
+                JOptionPane.showMessageDialog(mainPanel,
+                    "Failed during mass gateway setup: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
         });
+    }
 
-        progressDialog.setVisible(true);
-        worker.execute();
+    /**
+     * " - ETA ..." for a mass setup, or "" once nothing is left. Regions are paced
+     * independently, so the slowest region's estimate is the ETA.
+     */
+    private static String massSetupEta(ControlPlaneScheduler scheduler, Map<String, AtomicInteger> remainingByRegion,
+                                       boolean cancelled) {
+        long etaMillis = 0;
+        for (Map.Entry<String, AtomicInteger> entry : remainingByRegion.entrySet()) {
+            etaMillis = Math.max(etaMillis, scheduler.estimateMillis(entry.getKey(), entry.getValue().get(),
+                ControlPlaneScheduler.Operation.IMPORT, ControlPlaneScheduler.Operation.DEPLOY));
+        }
+        if (etaMillis == 0 || cancelled) {
+            return "";
+        }
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(etaMillis);
+        return seconds >= 60
+            ? String.format(" - ETA %dm %02ds", seconds / 60, seconds % 60)
+            : String.format(" - ETA %ds", seconds);
     }
 
     /**
      * Update a gateway (non-blocking)
      */
-    private void updateGateway(String apiId) {
+    private void updateGateway(String apiId, String region) {
         if (awsManager == null) {
             return;
         }
@@ -2169,43 +2696,24 @@ public class AwsIpRotatorExtension implements BurpExtension {
 
                 logging.logToOutput("Updating gateway " + apiId + " (background operation)...");
 
-                // Use SwingWorker to update gateway in background
-                SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
-                    @Override
-                    protected Boolean doInBackground() {
-                        // This runs in background thread - won't freeze UI
-                        return awsManager.updateGateway(apiId, targetUrl);
-                    }
-
-                    @Override
-                    protected void done() {
-                        try {
-                            boolean success = get();
-
-                            if (success) {
-                                logging.logToOutput("Updated gateway " + apiId + " to point to " + targetUrl);
-                                JOptionPane.showMessageDialog(mainPanel,
-                                    "Gateway updated successfully!",
-                                    "Success",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                                refreshGatewayList();
-                            } else {
-                                JOptionPane.showMessageDialog(mainPanel,
-                                    "Failed to update gateway: " + awsManager.getLastError(),
-                                    "Error",
-                                    JOptionPane.ERROR_MESSAGE);
-                            }
-                        } catch (Exception ex) {
-                            logging.logToError("Failed to update gateway: " + ex.getMessage());
-                            JOptionPane.showMessageDialog(mainPanel,
-                                "Failed to update gateway: " + ex.getMessage(),
-                                "Error",
-                                JOptionPane.ERROR_MESSAGE);
-                        }
+                // Run the update as a job and report its outcome on the EDT
+                jobQueue.update(apiId, region, targetUrl).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error == null) {
+                        logging.logToOutput("Updated gateway " + apiId + " to point to " + targetUrl);
+                        showInventory();
+                        JOptionPane.showMessageDialog(mainPanel,
+                            "Gateway updated successfully!",
+                            "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        String reason = AwsIpRotatorManager.failureMessage(error);
+                        logging.logToError("Failed to update gateway: " + reason);
+                        JOptionPane.showMessageDialog(mainPanel,
+                            "Failed to update gateway: " + reason,
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
                     }
-                };
-
-                worker.execute();
+                }));
 
             } catch (MalformedURLException ex) {
                 JOptionPane.showMessageDialog(mainPanel,
@@ -2216,40 +2724,6 @@ public class AwsIpRotatorExtension implements BurpExtension {
         }
     }
 
-    /**
-     * Delete a gateway
-     */
-    private void deleteGateway(String apiId, String name) {
-        if (awsManager == null) {
-            return;
-        }
-
-        int confirm = JOptionPane.showConfirmDialog(mainPanel,
-            "Delete gateway " + name + " (" + apiId + ")?\n\n" +
-            "This will permanently delete the API Gateway from AWS.",
-            "Confirm Delete",
-            JOptionPane.YES_NO_OPTION,
-            JOptionPane.WARNING_MESSAGE);
-
-        if (confirm == JOptionPane.YES_OPTION) {
-            boolean success = awsManager.deleteGateway(apiId);
-
-            if (success) {
-                logging.logToOutput("Deleted gateway: " + apiId);
-                JOptionPane.showMessageDialog(mainPanel,
-                    "Gateway deleted successfully!",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                refreshGatewayList();
-            } else {
-                JOptionPane.showMessageDialog(mainPanel,
-                    "Failed to delete gateway: " + awsManager.getLastError(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
     /**
      * Simple holder for a domain and its target URL (used by mass gateway setup)
      */
@@ -2266,10 +2740,24 @@ public class AwsIpRotatorExtension implements BurpExtension {
     /**
      * Configuration storage class
      */
-    private static class AwsIpRotatorConfig {
+    static class AwsIpRotatorConfig {
         boolean enabled = false;
-        Map<String, DomainConfig> domainConfigs = new HashMap<>(); // domain -> DomainConfig
+        // domain -> DomainConfig; concurrent so the health refresh, save and publish can read it while it changes
+        final Map<String, DomainConfig> domainConfigs = new ConcurrentHashMap<>();
         boolean preserveOriginalHost = false;
+        CircuitBreaker.Settings breakerSettings = CircuitBreaker.Settings.DEFAULT;
+        final RateLimiter rateLimiter = new RateLimiter();
+        final RetryPolicy retryPolicy = new RetryPolicy();
+        final MetricsRegistry metrics = new MetricsRegistry();
+        volatile RoutingSnapshot routing = RoutingSnapshot.EMPTY; // read by the HTTP handler
+
+        /**
+         * Publish a new routing snapshot after any change to the fields above or to a DomainConfig
+         */
+        void publishRouting() {
+            routing = RoutingSnapshot.of(enabled, preserveOriginalHost, breakerSettings, rateLimiter, metrics,
+                domainConfigs);
+        }
     }
 
     /**
@@ -2313,109 +2801,180 @@ public class AwsIpRotatorExtension implements BurpExtension {
     /**
      * HTTP Handler that rewrites requests to use AWS IP Rotator with multi-region rotation
      */
-    private class AwsIpRotatorHttpHandler implements HttpHandler {
+    static final class AwsIpRotatorHttpHandler implements HttpHandler {
+        private final AwsIpRotatorConfig config;
+        private final InFlightRequests inFlightRequests;
+        private final RewriteLog rewriteLog;
+        private final Http http;
+
+        /**
+         * Package-private so the routing hot path can be driven outside Burp (see src/jmh).
+         * The handler only uses http to resend retries.
+         */
+        AwsIpRotatorHttpHandler(AwsIpRotatorConfig config, InFlightRequests inFlightRequests,
+                                RewriteLog rewriteLog, Http http) {
+            this.config = config;
+            this.inFlightRequests = inFlightRequests;
+            this.rewriteLog = rewriteLog;
+            this.http = http;
+        }
+
         @Override
         public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
+            // Our own retries are already routed: strip their marker and send them as they are
+            if (requestToBeSent.hasHeader(RetryPolicy.MARKER_HEADER)) {
+                return RequestToBeSentAction.continueWith(requestToBeSent.withRemovedHeader(RetryPolicy.MARKER_HEADER));
+            }
+
+            // Read one consistent routing snapshot for the whole request
+            RoutingSnapshot routing = config.routing;
+
             // Only process if enabled and configured
-            if (!config.enabled || config.domainConfigs.isEmpty()) {
+            if (!routing.isEnabled() || routing.isEmpty()) {
                 return RequestToBeSentAction.continueWith(requestToBeSent);
             }
 
-            // Check if this request is for any of our configured domains
+            // Find matching domain route (case-insensitive exact host, then wildcard)
             String requestHost = requestToBeSent.httpService().host();
-            DomainConfig domainConfig = null;
-
-            // Find matching domain config (case-insensitive)
-            for (Map.Entry<String, DomainConfig> entry : config.domainConfigs.entrySet()) {
-                if (requestHost.equalsIgnoreCase(entry.getKey())) {
-                    domainConfig = entry.getValue();
-                    break;
-                }
-            }
+            DomainRoute route = routing.route(requestHost);
 
             // No matching domain found or no gateways configured
-            if (domainConfig == null || domainConfig.getGatewayCount() == 0) {
+            if (route == null || route.getGatewayCount() == 0) {
                 return RequestToBeSentAction.continueWith(requestToBeSent);
             }
 
-            // Get the next gateway URL based on rotation strategy
-            String awsIpRotatorGatewayUrl = domainConfig.getNextGatewayUrl();
+            // Get the next pre-parsed gateway endpoint based on rotation strategy
+            GatewayEndpoint endpoint = route.next();
 
-            // Safety check
-            if (awsIpRotatorGatewayUrl == null) {
+            // Rate limited with "send direct", or no gateway at all
+            if (endpoint == null) {
                 return RequestToBeSentAction.continueWith(requestToBeSent);
             }
 
-            try {
-                // Parse AWS IP Rotator gateway URL
-                URL gatewayUrl = new URL(awsIpRotatorGatewayUrl);
-                String gatewayHost = gatewayUrl.getHost();
-                int gatewayPort = gatewayUrl.getPort() != -1 ? gatewayUrl.getPort() :
-                                  (gatewayUrl.getProtocol().equals("https") ? 443 : 80);
-                boolean isHttps = gatewayUrl.getProtocol().equals("https");
-                String gatewayPath = gatewayUrl.getPath();
-
-                // Ensure gateway path ends with /
-                if (!gatewayPath.endsWith("/")) {
-                    gatewayPath += "/";
-                }
+            String gatewayHost = endpoint.getHost();
+            String requestPath = requestToBeSent.path();
+            String newPath = endpoint.rewritePath(requestPath);
 
-                // Remove leading / from request path if present
-                String requestPath = requestToBeSent.path();
-                if (requestPath.startsWith("/")) {
-                    requestPath = requestPath.substring(1);
-                }
+            // Build modified request with new path
+            HttpRequest modifiedRequest = requestToBeSent.withPath(newPath);
 
-                // Build new path
-                String newPath = gatewayPath + requestPath;
+            // Update Host header
+            modifiedRequest = modifiedRequest.withUpdatedHeader("Host", gatewayHost);
 
-                // Build modified request with new path
-                HttpRequest modifiedRequest = requestToBeSent.withPath(newPath);
+            // Optionally preserve original host
+            if (routing.isPreserveOriginalHost()) {
+                modifiedRequest = modifiedRequest.withAddedHeader("X-Original-Host", requestHost);
+            }
 
-                // Update Host header
-                modifiedRequest = modifiedRequest.withUpdatedHeader("Host", gatewayHost);
+            // Route to the gateway's cached HTTP service
+            modifiedRequest = modifiedRequest.withService(endpoint.getHttpService());
 
-                // Optionally preserve original host
-                if (config.preserveOriginalHost) {
-                    modifiedRequest = modifiedRequest.withAddedHeader("X-Original-Host", requestHost);
-                }
+            // Remember which gateway serves this request so its response can be scored (and retried)
+            inFlightRequests.started(requestToBeSent.messageId(), route, endpoint, requestPath);
+            long requestBytes = MetricsRegistry.messageBytes(modifiedRequest);
+            MetricsRegistry.recordRequest(route, endpoint, requestBytes);
 
-                // Create new HTTP service for the gateway
-                modifiedRequest = modifiedRequest.withService(
-                    HttpService.httpService(gatewayHost, gatewayPort, isHttps)
-                );
-
-                // Log detailed rewriting information
-                logging.logToOutput(String.format(
-                    "[AWS IP Rotator] Request Rewritten:\n" +
-                    "  Original: %s://%s%s\n" +
-                    "  Gateway:  %s://%s%s\n" +
-                    "  Host Header: %s -> %s\n" +
-                    "  SNI: %s (auto-set by Montoya API)\n" +
-                    "  Strategy: %s",
-                    requestToBeSent.httpService().secure() ? "https" : "http",
-                    requestHost,
-                    requestToBeSent.path(),
-                    isHttps ? "https" : "http",
-                    gatewayHost,
-                    newPath,
-                    requestHost,
-                    gatewayHost,
-                    gatewayHost,
-                    domainConfig.getStrategy()
-                ));
-
-                return RequestToBeSentAction.continueWith(modifiedRequest);
-
-            } catch (MalformedURLException e) {
-                logging.logToError("Invalid AWS IP Rotator gateway URL: " + e.getMessage());
-                return RequestToBeSentAction.continueWith(requestToBeSent);
-            }
+            // Hand off to the background rewrite log (no formatting on this thread)
+            rewriteLog.record(requestToBeSent.httpService().secure(), requestHost, requestPath,
+                endpoint, newPath, route.getStrategy());
+
+            return RequestToBeSentAction.continueWith(modifiedRequest);
         }
 
         @Override
         public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
-            return ResponseReceivedAction.continueWith(responseReceived);
+            // Score the gateway that served this request (403/429/5xx count as failures)
+            InFlightRequests.InFlightRequest inFlight = inFlightRequests.completed(responseReceived.messageId());
+            if (inFlight == null) {
+                return ResponseReceivedAction.continueWith(responseReceived);
+            }
+            CircuitBreaker.Settings breakerSettings = config.routing.getBreakerSettings();
+            long latencyNanos = System.nanoTime() - inFlight.startNanos;
+            int statusCode = responseReceived.statusCode();
+            long responseBytes = MetricsRegistry.messageBytes(responseReceived);
+            inFlight.endpoint.recordResponse(statusCode, latencyNanos, breakerSettings);
+            MetricsRegistry.recordResponse(inFlight.route, inFlight.endpoint, statusCode, responseBytes, latencyNanos);
+
+            RetryPolicy retryPolicy = config.retryPolicy;
+            if (!retryPolicy.getSettings().enabled || !RetryPolicy.isRetryableStatus(statusCode)) {
+                retryPolicy.onResponse();
+                return ResponseReceivedAction.continueWith(responseReceived);
+            }
+
+            HttpResponse retried = retryThroughAlternateGateway(responseReceived, inFlight, breakerSettings);
+            return retried != null
+                ? ResponseReceivedAction.continueWith(retried, responseReceived.annotations())
+                : ResponseReceivedAction.continueWith(responseReceived);
+        }
+
+        /**
+         * Resend a throttled or failed request through other gateways of the same domain,
+         * within RetryPolicy.MAX_RETRY_DELAY_MS of this call. Returns the first non-retryable
+         * response, or null to keep the original one.
+         */
+        private HttpResponse retryThroughAlternateGateway(HttpResponseReceived failed,
+                                                          InFlightRequests.InFlightRequest inFlight,
+                                                          CircuitBreaker.Settings breakerSettings) {
+            RetryPolicy retryPolicy = config.retryPolicy;
+            RetryStats retryStats = inFlight.route.getRetryStats();
+            HttpRequest request = failed.initiatingRequest();
+            GatewayEndpoint previous = inFlight.endpoint;
+            int maxRetries = retryPolicy.getSettings().maxRetries;
+            long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RetryPolicy.MAX_RETRY_DELAY_MS);
+
+            for (int retry = 1; retry <= maxRetries; retry++) {
+                if (!retryPolicy.tryAcquireRetry() || !retryPolicy.backoff(retry, deadlineNanos)) {
+                    retryStats.recordSkipped();
+                    return null;
+                }
+                GatewayEndpoint endpoint = inFlight.route.nextAlternate(previous);
+                if (endpoint == null) {
+                    retryStats.recordSkipped();
+                    return null;
+                }
+
+                HttpRequest retryRequest = request
+                    .withPath(endpoint.rewritePath(inFlight.originalPath))
+                    .withUpdatedHeader("Host", endpoint.getHost())
+                    .withAddedHeader(RetryPolicy.MARKER_HEADER, "1")
+                    .withService(endpoint.getHttpService());
+                long remainingMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+
+                retryStats.recordAttempt();
+                long requestBytes = MetricsRegistry.messageBytes(retryRequest);
+                MetricsRegistry.recordRequest(inFlight.route, endpoint, requestBytes);
+                endpoint.requestStarted();
+                long startNanos = System.nanoTime();
+                HttpRequestResponse result;
+                try {
+                    result = http.sendRequest(retryRequest,
+                        RequestOptions.requestOptions().withResponseTimeout(remainingMillis));
+                } catch (RuntimeException e) {
+                    result = null;
+                } finally {
+                    endpoint.requestFinished();
+                }
+
+                if (result == null || !result.hasResponse()) {
+                    endpoint.recordTimeout(System.nanoTime() - startNanos, breakerSettings);
+                    MetricsRegistry.recordNoResponse(inFlight.route, endpoint);
+                } else {
+                    HttpResponse response = result.response();
+                    int statusCode = response.statusCode();
+                    long latencyNanos = System.nanoTime() - startNanos;
+                    long responseBytes = MetricsRegistry.messageBytes(response);
+                    endpoint.recordResponse(statusCode, latencyNanos, breakerSettings);
+                    MetricsRegistry.recordResponse(inFlight.route, endpoint, statusCode, responseBytes, latencyNanos);
+                    if (!RetryPolicy.isRetryableStatus(statusCode)) {
+                        retryStats.recordRecovered();
+                        return response;
+                    }
+                }
+                previous = endpoint;
+            }
+
+            retryStats.recordExhausted();
+            return null;
         }
     }
 }
@@ -6,12 +6,17 @@ import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
+import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.apigateway.ApiGatewayClient;
+import software.amazon.awssdk.services.apigateway.ApiGatewayAsyncClient;
 import software.amazon.awssdk.services.apigateway.model.*;
 
 import java.net.URI;
 import java.net.URL;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -20,82 +25,178 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * AWS IP Rotator Manager - Handles AWS API Gateway operations for creating rotating IP proxies
+ *
+ * Clients are cached per region and built lazily on first use. All of them share one
+ * credentials provider and one non-blocking Netty HTTP client, so multi-region operations
+ * reuse warm TLS connections instead of bootstrapping a new SDK client for every call.
+ * Any number of region and host operations can be outstanding on a few event-loop
+ * threads, and callers compose the returned futures instead of blocking a thread.
+ *
+ * Every control-plane call goes through a ControlPlaneScheduler, which paces imports,
+ * deployments, deletions and reads to API Gateway's per-region quotas and retries
+ * throttled calls, so callers can submit any number of operations at once.
  */
 public class AwsIpRotatorManager {
-    private ApiGatewayClient client;
-    private Region region;
-    private String lastError;
+    private static final int MAX_CONNECTIONS = 64; // shared by all regions
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration SOCKET_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration CONNECTION_MAX_IDLE = Duration.ofSeconds(60);
+
+    // Title prefix of every API this extension imports (see getSwaggerTemplate)
+    static final String GATEWAY_NAME_PREFIX = "aws_ip_rotator_";
+    private static final String PROXY_RESOURCE_PATH = "/{proxy+}";
+    private static final int PAGE_SIZE = 500; // API Gateway's maximum page size
+    private static final int LOOKUPS_PER_REGION = 8;
+    // API description of gateways created by a GatewayJobQueue job, followed by the job ID
+    private static final String JOB_MARKER_PREFIX = "AWS IP Rotator job ";
+
+    // Common AWS regions scanned by streamGatewaysAllRegions
+    public static final String[] DISCOVERY_REGIONS = {
+        "us-east-1", "us-east-2", "us-west-1", "us-west-2",
+        "eu-west-1", "eu-west-2", "eu-west-3", "eu-central-1", "eu-north-1",
+        "ap-south-1", "ap-northeast-1", "ap-northeast-2", "ap-southeast-1", "ap-southeast-2",
+        "ca-central-1", "sa-east-1"
+    };
+
+    private final Map<String, ApiGatewayAsyncClient> asyncRegionClients = new ConcurrentHashMap<>();
+    private volatile AwsCredentialsProvider credentialsProvider;
+    private SdkAsyncHttpClient asyncHttpClient;
+    private final ExecutionService executors;
+    private final ControlPlaneScheduler scheduler;
+    private volatile String lastError;
+
+    /**
+     * SDK completions and control-plane dispatch run on the extension's shared pools
+     */
+    public AwsIpRotatorManager(ExecutionService executors) {
+        this.executors = executors;
+        this.scheduler = new ControlPlaneScheduler(executors.scheduler());
+    }
 
     /**
      * Initialize with default credentials provider (uses AWS credentials from environment/config)
      */
-    public boolean initializeWithDefaultCredentials(String regionName) {
-        try {
-            this.region = Region.of(regionName != null ? regionName : "us-east-1");
-            this.client = ApiGatewayClient.builder()
-                    .region(this.region)
-                    .credentialsProvider(DefaultCredentialsProvider.create())
-                    .build();
+    public CompletableFuture<Boolean> initializeWithDefaultCredentials(String regionName) {
+        return initialize(DefaultCredentialsProvider.create(), regionName,
+                "Failed to initialize with default credentials");
+    }
 
-            // Test credentials by calling get_account
-            client.getAccount();
-            return true;
+    /**
+     * Initialize with AWS profile
+     */
+    public CompletableFuture<Boolean> initializeWithProfile(String profileName, String regionName) {
+        return initialize(ProfileCredentialsProvider.create(profileName), regionName,
+                "Failed to initialize with profile");
+    }
+
+    /**
+     * Initialize with explicit AWS credentials
+     */
+    public CompletableFuture<Boolean> initializeWithCredentials(String accessKey, String secretKey, String regionName) {
+        try {
+            AwsCredentials credentials = AwsBasicCredentials.create(accessKey, secretKey);
+            return initialize(StaticCredentialsProvider.create(credentials), regionName,
+                    "Failed to initialize with credentials");
         } catch (Exception e) {
-            lastError = "Failed to initialize with default credentials: " + e.getMessage();
-            return false;
+            lastError = "Failed to initialize with credentials: " + e.getMessage();
+            return CompletableFuture.completedFuture(false);
         }
     }
 
     /**
-     * Initialize with AWS profile
+     * Switch every cached client to the given credentials and test them with a GetAccount
+     * call in the home region. Completes with false, and getLastError() set, if they fail.
      */
-    public boolean initializeWithProfile(String profileName, String regionName) {
+    private CompletableFuture<Boolean> initialize(AwsCredentialsProvider provider, String regionName,
+                                                  String failureMessage) {
         try {
-            this.region = Region.of(regionName != null ? regionName : "us-east-1");
-            this.client = ApiGatewayClient.builder()
-                    .region(this.region)
-                    .credentialsProvider(ProfileCredentialsProvider.create(profileName))
-                    .build();
-
-            // Test credentials
-            client.getAccount();
-            return true;
+            String home = Region.of(regionName != null ? regionName : "us-east-1").id();
+            resetClients(provider);
+            ApiGatewayAsyncClient homeClient = asyncClientFor(home);
+            return scheduler.submit(ControlPlaneScheduler.Operation.READ, home,
+                            ControlPlaneScheduler.Priority.INTERACTIVE,
+                            () -> homeClient.getAccount(GetAccountRequest.builder().build()))
+                    .handle((account, error) -> {
+                        if (error != null) {
+                            lastError = failureMessage + ": " + failureMessage(error);
+                            return false;
+                        }
+                        return true;
+                    });
         } catch (Exception e) {
-            lastError = "Failed to initialize with profile: " + e.getMessage();
-            return false;
+            lastError = failureMessage + ": " + e.getMessage();
+            return CompletableFuture.completedFuture(false);
         }
     }
 
     /**
-     * Initialize with explicit AWS credentials
+     * Drop clients built for the previous credentials; the HTTP client and its pool are kept
      */
-    public boolean initializeWithCredentials(String accessKey, String secretKey, String regionName) {
-        try {
-            this.region = Region.of(regionName != null ? regionName : "us-east-1");
-            AwsCredentials credentials = AwsBasicCredentials.create(accessKey, secretKey);
-            this.client = ApiGatewayClient.builder()
-                    .region(this.region)
-                    .credentialsProvider(StaticCredentialsProvider.create(credentials))
+    private synchronized void resetClients(AwsCredentialsProvider provider) {
+        closeRegionClients();
+        credentialsProvider = provider;
+    }
+
+    /**
+     * The cached async client for a region, built on first use (null before initialization).
+     * The Netty transport is only started when first needed; completions run on the shared
+     * "aws-callbacks" pool.
+     */
+    private ApiGatewayAsyncClient asyncClientFor(String regionName) {
+        ApiGatewayAsyncClient cached = asyncRegionClients.get(regionName);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (this) {
+            AwsCredentialsProvider provider = credentialsProvider;
+            if (provider == null) {
+                return null;
+            }
+            if (asyncHttpClient == null) {
+                asyncHttpClient = NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(MAX_CONNECTIONS)
+                        .connectionTimeout(CONNECTION_TIMEOUT)
+                        .readTimeout(SOCKET_TIMEOUT)
+                        .connectionMaxIdleTime(CONNECTION_MAX_IDLE)
+                        .tcpKeepAlive(true)
+                        .build();
+            }
+            ClientAsyncConfiguration asyncConfiguration = ClientAsyncConfiguration.builder()
+                    .advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, executors.callbacks())
                     .build();
+            return asyncRegionClients.computeIfAbsent(regionName, name -> ApiGatewayAsyncClient.builder()
+                    .region(Region.of(name))
+                    .credentialsProvider(provider)
+                    .httpClient(asyncHttpClient)
+                    .asyncConfiguration(asyncConfiguration)
+                    .build());
+        }
+    }
 
-            // Test credentials
-            client.getAccount();
-            return true;
-        } catch (Exception e) {
-            lastError = "Failed to initialize with credentials: " + e.getMessage();
-            return false;
+    private void closeRegionClients() {
+        for (ApiGatewayAsyncClient regionClient : asyncRegionClients.values()) {
+            try {
+                regionClient.close();
+            } catch (Exception e) {
+                // Nothing useful to do if a client fails to close
+            }
         }
+        asyncRegionClients.clear();
     }
 
     /**
-     * Get the Swagger/OpenAPI template for AWS IP Rotator
+     * Get the Swagger/OpenAPI template for AWS IP Rotator. A job ID, if given, becomes the
+     * API's description so a resumed job can find the API it imported.
      */
-    private String getSwaggerTemplate(String targetUrl) {
+    private String getSwaggerTemplate(String targetUrl, String jobId) {
         // Remove trailing slash
         if (targetUrl.endsWith("/")) {
             targetUrl = targetUrl.substring(0, targetUrl.length() - 1);
@@ -110,15 +211,17 @@ public class AwsIpRotatorManager {
             domain = "target";
         }
 
-        String title = "aws_ip_rotator_" + domain;
+        String title = GATEWAY_NAME_PREFIX + domain;
         String versionDate = DateTimeFormatter.ISO_INSTANT.format(Instant.now());
+        String description = jobId != null ? JOB_MARKER_PREFIX + jobId : "";
 
         return String.format("""
         {
           "swagger": "2.0",
           "info": {
             "version": "%s",
-            "title": "%s"
+            "title": "%s",
+            "description": "%s"
           },
           "basePath": "/",
           "schemes": [
@@ -206,386 +309,504 @@ public class AwsIpRotatorManager {
             }
           }
         }
-        """, versionDate, title, targetUrl, targetUrl);
+        """, versionDate, title, description, targetUrl, targetUrl);
     }
 
     /**
-     * Create a new AWS IP Rotator gateway in the current region
+     * Import and deploy a gateway in the given region. Completes exceptionally with a
+     * message saying what failed, which getLastError() also reports.
      */
-    public AwsIpRotatorGateway createGateway(String targetUrl) {
-        return createGatewayInRegion(targetUrl, region.id());
+    public CompletableFuture<AwsIpRotatorGateway> createGatewayInRegionAsync(String targetUrl, String regionName,
+                                                                           String stageName) {
+        return createGatewayInRegionAsync(targetUrl, regionName, stageName, ControlPlaneScheduler.Priority.INTERACTIVE);
     }
 
     /**
-     * Create a new AWS IP Rotator gateway in a specific region with default stage name
-     * This creates a temporary client for the specified region to create the gateway
+     * createGatewayInRegionAsync whose import and deployment queue at the given priority
      */
-    public AwsIpRotatorGateway createGatewayInRegion(String targetUrl, String regionName) {
-        return createGatewayInRegion(targetUrl, regionName, "v1");
+    public CompletableFuture<AwsIpRotatorGateway> createGatewayInRegionAsync(String targetUrl, String regionName,
+                                                                           String stageName,
+                                                                           ControlPlaneScheduler.Priority priority) {
+        String failure = "Failed to create gateway in region " + regionName;
+        try {
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
+            }
+            ImportRestApiRequest importRequest = buildImportRequest(targetUrl, null);
+            return describeFailure(scheduler.submit(ControlPlaneScheduler.Operation.IMPORT, regionName, priority,
+                            () -> regionClient.importRestApi(importRequest))
+                    .thenCompose(response -> scheduler.submit(ControlPlaneScheduler.Operation.DEPLOY, regionName, priority,
+                                    () -> regionClient.createDeployment(buildDeploymentRequest(response.id(), stageName)))
+                            .thenApply(deployment -> toGateway(response, targetUrl, regionName, stageName))), failure);
+        } catch (Exception e) {
+            return describeFailure(CompletableFuture.failedFuture(e), failure);
+        }
     }
 
     /**
-     * Create a new AWS IP Rotator gateway in a specific region with custom stage name
-     * This creates a temporary client for the specified region to create the gateway
+     * First half of a creation: import the API, marked with the job ID, without deploying
+     * it. The returned gateway's proxy URL only works once deployGatewayAsync has run.
      */
-    public AwsIpRotatorGateway createGatewayInRegion(String targetUrl, String regionName, String stageName) {
-        ApiGatewayClient tempClient = null;
+    public CompletableFuture<AwsIpRotatorGateway> importGatewayAsync(String targetUrl, String regionName,
+                                                                   String stageName, String jobId,
+                                                                   ControlPlaneScheduler.Priority priority) {
+        String failure = "Failed to create gateway in region " + regionName;
         try {
-            Region targetRegion = Region.of(regionName);
-
-            // Create a temporary client for the target region using the same credentials provider
-            // as the main client
-            if (client != null) {
-                tempClient = ApiGatewayClient.builder()
-                        .region(targetRegion)
-                        .credentialsProvider(client.serviceClientConfiguration().credentialsProvider())
-                        .build();
-            } else {
-                lastError = "Client not initialized";
-                return null;
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
             }
-
-            String template = getSwaggerTemplate(targetUrl);
-
-            Map<String, String> parameters = new HashMap<>();
-            parameters.put("endpointConfigurationTypes", "REGIONAL");
-
-            ImportRestApiRequest request = ImportRestApiRequest.builder()
-                    .parameters(parameters)
-                    .body(software.amazon.awssdk.core.SdkBytes.fromUtf8String(template))
-                    .build();
-
-            ImportRestApiResponse response = tempClient.importRestApi(request);
-            String apiId = response.id();
-
-            // Create deployment with custom stage name
-            CreateDeploymentRequest deployRequest = CreateDeploymentRequest.builder()
-                    .restApiId(apiId)
-                    .stageName(stageName)
-                    .stageDescription("AWS IP Rotator")
-                    .description("AWS IP Rotator Production Deployment")
-                    .build();
-
-            tempClient.createDeployment(deployRequest);
-
-            // Build the proxy URL with custom stage name
-            String proxyUrl = String.format("https://%s.execute-api.%s.amazonaws.com/%s/",
-                    apiId, targetRegion.id(), stageName);
-
-            return new AwsIpRotatorGateway(
-                    apiId,
-                    response.name(),
-                    response.createdDate(),
-                    targetUrl,
-                    proxyUrl,
-                    targetRegion.id()
-            );
+            ImportRestApiRequest importRequest = buildImportRequest(targetUrl, jobId);
+            return describeFailure(scheduler.submit(ControlPlaneScheduler.Operation.IMPORT, regionName, priority,
+                            () -> regionClient.importRestApi(importRequest))
+                    .thenApply(response -> toGateway(response, targetUrl, regionName, stageName)), failure);
         } catch (Exception e) {
-            lastError = "Failed to create gateway in region " + regionName + ": " + e.getMessage();
-            return null;
-        } finally {
-            if (tempClient != null) {
-                tempClient.close();
-            }
+            return describeFailure(CompletableFuture.failedFuture(e), failure);
         }
     }
 
     /**
-     * Get the stage name for an API (returns the first deployed stage or "v1" as default)
+     * Second half of a creation: deploy an imported API to the stage. Deploying again is
+     * harmless, so an interrupted job can always repeat this step.
      */
-    private String getStageName(ApiGatewayClient client, String apiId) {
+    public CompletableFuture<Void> deployGatewayAsync(String apiId, String regionName, String stageName,
+                                                      ControlPlaneScheduler.Priority priority) {
+        String failure = "Failed to deploy gateway in region " + regionName;
         try {
-            GetStagesRequest request = GetStagesRequest.builder()
-                    .restApiId(apiId)
-                    .build();
-            GetStagesResponse response = client.getStages(request);
-
-            if (response.item() != null && !response.item().isEmpty()) {
-                // Return the first stage name
-                return response.item().get(0).stageName();
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
             }
+            return describeFailure(scheduler.submit(ControlPlaneScheduler.Operation.DEPLOY, regionName, priority,
+                    () -> regionClient.createDeployment(buildDeploymentRequest(apiId, stageName)))
+                    .thenApply(response -> (Void) null), failure);
         } catch (Exception e) {
-            // If we can't get stages, default to "v1"
+            return describeFailure(CompletableFuture.failedFuture(e), failure);
         }
-        return "v1"; // Default stage name
     }
 
     /**
-     * List all AWS IP Rotator gateways in the current region
+     * The API a job imported before it was interrupted, found by the job ID in its
+     * description, or null if the import never happened
      */
-    public List<AwsIpRotatorGateway> listGateways() {
-        List<AwsIpRotatorGateway> gateways = new ArrayList<>();
+    public CompletableFuture<AwsIpRotatorGateway> findJobGatewayAsync(String targetUrl, String regionName,
+                                                                    String stageName, String jobId,
+                                                                    ControlPlaneScheduler.Priority priority) {
+        String failure = "Failed to look up gateway in region " + regionName;
         try {
-            GetRestApisRequest request = GetRestApisRequest.builder().build();
-            GetRestApisResponse response = client.getRestApis(request);
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
+            }
+            return describeFailure(findApiByDescription(new Reader(regionClient, regionName, priority),
+                    JOB_MARKER_PREFIX + jobId, null).thenApply(api -> api == null ? null : new AwsIpRotatorGateway(
+                    api.id(), api.name(), api.createdDate(), targetUrl, proxyUrl(api.id(), regionName, stageName),
+                    regionName)), failure);
+        } catch (Exception e) {
+            return describeFailure(CompletableFuture.failedFuture(e), failure);
+        }
+    }
 
+    private CompletableFuture<RestApi> findApiByDescription(Reader reader, String description, String position) {
+        GetRestApisRequest request = GetRestApisRequest.builder()
+                .limit(PAGE_SIZE)
+                .position(position)
+                .build();
+        return reader.read(() -> reader.client.getRestApis(request)).thenCompose(response -> {
             for (RestApi api : response.items()) {
-                try {
-                    String apiId = api.id();
-                    String targetUrl = getIntegrationUri(apiId);
-                    if (targetUrl != null) {
-                        String stageName = getStageName(client, apiId);
-                        String proxyUrl = String.format("https://%s.execute-api.%s.amazonaws.com/%s/",
-                                apiId, region.id(), stageName);
-
-                        gateways.add(new AwsIpRotatorGateway(
-                                apiId,
-                                api.name(),
-                                api.createdDate(),
-                                targetUrl,
-                                proxyUrl,
-                                region.id()
-                        ));
-                    }
-                } catch (Exception e) {
-                    // Skip APIs that don't have the expected structure
+                if (api.name() != null && api.name().startsWith(GATEWAY_NAME_PREFIX)
+                        && description.equals(api.description())) {
+                    return CompletableFuture.completedFuture(api);
                 }
             }
-        } catch (Exception e) {
-            lastError = "Failed to list gateways: " + e.getMessage();
-        }
-        return gateways;
+            String next = response.position();
+            if (next == null || next.isEmpty() || next.equals(position)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return findApiByDescription(reader, description, next);
+        });
     }
 
-    /**
-     * List all AWS IP Rotator gateways across all common AWS regions (parallel execution)
-     */
-    public List<AwsIpRotatorGateway> listGatewaysAllRegions() {
-        List<AwsIpRotatorGateway> allGateways = Collections.synchronizedList(new ArrayList<>());
+    private ImportRestApiRequest buildImportRequest(String targetUrl, String jobId) {
+        String template = getSwaggerTemplate(targetUrl, jobId);
 
-        // Common AWS regions to check
-        String[] regions = {
-            "us-east-1", "us-east-2", "us-west-1", "us-west-2",
-            "eu-west-1", "eu-west-2", "eu-west-3", "eu-central-1", "eu-north-1",
-            "ap-south-1", "ap-northeast-1", "ap-northeast-2", "ap-southeast-1", "ap-southeast-2",
-            "ca-central-1", "sa-east-1"
-        };
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("endpointConfigurationTypes", "REGIONAL");
 
-        // Create executor service for parallel execution
-        ExecutorService executor = Executors.newFixedThreadPool(Math.min(regions.length, 10));
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        return ImportRestApiRequest.builder()
+                .parameters(parameters)
+                .body(software.amazon.awssdk.core.SdkBytes.fromUtf8String(template))
+                .build();
+    }
 
-        for (String regionName : regions) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                ApiGatewayClient tempClient = null;
-                try {
-                    Region targetRegion = Region.of(regionName);
-
-                    // Create temporary client for this region
-                    if (client != null) {
-                        tempClient = ApiGatewayClient.builder()
-                                .region(targetRegion)
-                                .credentialsProvider(client.serviceClientConfiguration().credentialsProvider())
-                                .build();
-                    } else {
-                        return;
-                    }
+    /**
+     * Deployment with custom stage name
+     */
+    private static CreateDeploymentRequest buildDeploymentRequest(String apiId, String stageName) {
+        return CreateDeploymentRequest.builder()
+                .restApiId(apiId)
+                .stageName(stageName)
+                .stageDescription("AWS IP Rotator")
+                .description("AWS IP Rotator Production Deployment")
+                .build();
+    }
 
-                    // List gateways in this region
-                    GetRestApisRequest request = GetRestApisRequest.builder().build();
-                    GetRestApisResponse response = tempClient.getRestApis(request);
-
-                    for (RestApi api : response.items()) {
-                        try {
-                            String apiId = api.id();
-                            String targetUrl = getIntegrationUriForClient(tempClient, apiId);
-                            if (targetUrl != null) {
-                                String stageName = getStageName(tempClient, apiId);
-                                String proxyUrl = String.format("https://%s.execute-api.%s.amazonaws.com/%s/",
-                                        apiId, targetRegion.id(), stageName);
-
-                                allGateways.add(new AwsIpRotatorGateway(
-                                        apiId,
-                                        api.name(),
-                                        api.createdDate(),
-                                        targetUrl,
-                                        proxyUrl,
-                                        targetRegion.id()
-                                ));
-                            }
-                        } catch (Exception e) {
-                            // Skip APIs that don't have the expected structure
-                        }
-                    }
-                } catch (Exception e) {
-                    // Skip regions where we can't connect or don't have access
-                } finally {
-                    if (tempClient != null) {
-                        tempClient.close();
-                    }
-                }
-            }, executor);
+    private static AwsIpRotatorGateway toGateway(ImportRestApiResponse response, String targetUrl,
+                                                 String regionName, String stageName) {
+        return new AwsIpRotatorGateway(
+                response.id(),
+                response.name(),
+                response.createdDate(),
+                targetUrl,
+                proxyUrl(response.id(), regionName, stageName),
+                regionName
+        );
+    }
 
-            futures.add(future);
-        }
+    private static String proxyUrl(String apiId, String regionName, String stageName) {
+        return String.format("https://%s.execute-api.%s.amazonaws.com/%s/", apiId, regionName, stageName);
+    }
 
-        // Wait for all regions to complete
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        } catch (Exception e) {
-            // Some regions may have failed, but we still return what we got
-        } finally {
-            executor.shutdown();
-        }
+    /**
+     * Every rotator gateway in one region (see streamGatewaysInRegion)
+     */
+    public CompletableFuture<List<AwsIpRotatorGateway>> listGatewaysInRegionAsync(String regionName) {
+        return listGatewaysInRegionAsync(regionName, ControlPlaneScheduler.Priority.INTERACTIVE);
+    }
 
-        return allGateways;
+    /**
+     * listGatewaysInRegionAsync whose reads queue at the given priority
+     */
+    public CompletableFuture<List<AwsIpRotatorGateway>> listGatewaysInRegionAsync(String regionName,
+                                                                                ControlPlaneScheduler.Priority priority) {
+        List<AwsIpRotatorGateway> gateways = Collections.synchronizedList(new ArrayList<>());
+        return streamGatewaysInRegion(regionName, priority, gateways::addAll).thenApply(ignored -> gateways);
     }
 
     /**
-     * Delete a AWS IP Rotator gateway in the current region
+     * Receives discovery results as they arrive. Called on SDK completion threads, possibly
+     * for several regions at once.
      */
-    public boolean deleteGateway(String apiId) {
-        return deleteGatewayInRegion(apiId, region.id());
+    public interface DiscoveryListener {
+        /**
+         * One page's worth of gateways from a region (never empty)
+         */
+        void gatewaysFound(String region, List<AwsIpRotatorGateway> gateways);
+
+        /**
+         * A region has been fully scanned, or failed with the given error (else null)
+         */
+        void regionFinished(String region, Throwable error);
     }
 
     /**
-     * Delete a AWS IP Rotator gateway in a specific region
+     * Scan all common regions concurrently, reporting each page of gateways as soon as it is
+     * resolved, so results from fast regions show before slow ones finish. The future
+     * completes normally once every region has finished or failed.
      */
-    public boolean deleteGatewayInRegion(String apiId, String regionName) {
-        ApiGatewayClient tempClient = null;
-        try {
-            Region targetRegion = Region.of(regionName);
+    public CompletableFuture<Void> streamGatewaysAllRegions(DiscoveryListener listener) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String regionName : DISCOVERY_REGIONS) {
+            futures.add(streamGatewaysInRegion(regionName, ControlPlaneScheduler.Priority.INTERACTIVE,
+                            gateways -> listener.gatewaysFound(regionName, gateways))
+                    .handle((ignored, error) -> {
+                        listener.regionFinished(regionName, error != null ? unwrap(error) : null);
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
 
-            // Create temporary client for the target region
-            if (client != null) {
-                tempClient = ApiGatewayClient.builder()
-                        .region(targetRegion)
-                        .credentialsProvider(client.serviceClientConfiguration().credentialsProvider())
-                        .build();
-            } else {
-                lastError = "Client not initialized";
-                return false;
+    /**
+     * Every rotator gateway in one region, one batch per getRestApis page. Follows position
+     * pagination, skips APIs whose name lacks the rotator prefix before any per-API call,
+     * then reads each remaining API's proxy integration (resources with embedded methods)
+     * and stage, LOOKUPS_PER_REGION APIs at a time. That is two calls per rotator API
+     * instead of four per API. The next page is fetched while the current one is resolved.
+     * Every read queues at the given priority.
+     */
+    public CompletableFuture<Void> streamGatewaysInRegion(String regionName, ControlPlaneScheduler.Priority priority,
+                                                          Consumer<List<AwsIpRotatorGateway>> onBatch) {
+        try {
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
             }
-
-            DeleteRestApiRequest request = DeleteRestApiRequest.builder()
-                    .restApiId(apiId)
-                    .build();
-            tempClient.deleteRestApi(request);
-            return true;
+            return streamPages(new Reader(regionClient, regionName, priority), null, onBatch);
         } catch (Exception e) {
-            lastError = "Failed to delete gateway in region " + regionName + ": " + e.getMessage();
-            return false;
-        } finally {
-            if (tempClient != null) {
-                tempClient.close();
-            }
+            return CompletableFuture.failedFuture(e);
         }
     }
 
     /**
-     * Update a AWS IP Rotator gateway to point to a new URL
+     * One region's discovery reads, queued on the scheduler at one priority
      */
-    public boolean updateGateway(String apiId, String newTargetUrl) {
-        try {
-            // Remove trailing slash
-            if (newTargetUrl.endsWith("/")) {
-                newTargetUrl = newTargetUrl.substring(0, newTargetUrl.length() - 1);
-            }
+    private final class Reader {
+        final ApiGatewayAsyncClient client;
+        final String region;
+        final ControlPlaneScheduler.Priority priority;
+
+        Reader(ApiGatewayAsyncClient client, String region, ControlPlaneScheduler.Priority priority) {
+            this.client = client;
+            this.region = region;
+            this.priority = priority;
+        }
 
-            String resourceId = getProxyResourceId(apiId);
-            if (resourceId == null) {
-                lastError = "Unable to find proxy resource for API";
-                return false;
+        <T> CompletableFuture<T> read(Supplier<CompletableFuture<T>> call) {
+            return scheduler.submit(ControlPlaneScheduler.Operation.READ, region, priority, call);
+        }
+    }
+
+    private CompletableFuture<Void> streamPages(Reader reader, String position,
+                                                Consumer<List<AwsIpRotatorGateway>> onBatch) {
+        GetRestApisRequest request = GetRestApisRequest.builder()
+                .limit(PAGE_SIZE)
+                .position(position)
+                .build();
+        return reader.read(() -> reader.client.getRestApis(request)).thenCompose(response -> {
+            List<RestApi> apis = new ArrayList<>();
+            for (RestApi api : response.items()) {
+                if (api.name() != null && api.name().startsWith(GATEWAY_NAME_PREFIX)) {
+                    apis.add(api);
+                }
             }
+            CompletableFuture<Void> page = lookUpGateways(reader, apis).thenAccept(gateways -> {
+                if (!gateways.isEmpty()) {
+                    onBatch.accept(gateways);
+                }
+            });
 
-            UpdateIntegrationRequest request = UpdateIntegrationRequest.builder()
-                    .restApiId(apiId)
-                    .resourceId(resourceId)
-                    .httpMethod("ANY")
-                    .patchOperations(
-                            PatchOperation.builder()
-                                    .op(Op.REPLACE)
-                                    .path("/uri")
-                                    .value(newTargetUrl + "/{proxy}")
-                                    .build()
-                    )
-                    .build();
+            String next = response.position();
+            if (next == null || next.isEmpty() || next.equals(position)) {
+                return page;
+            }
+            return CompletableFuture.allOf(page, streamPages(reader, next, onBatch));
+        });
+    }
 
-            client.updateIntegration(request);
-            return true;
-        } catch (Exception e) {
-            lastError = "Failed to update gateway: " + e.getMessage();
-            return false;
+    /**
+     * Look up every API in a fixed number of sequential lanes, which bounds the fan-out
+     * without blocking a thread per lane. APIs without the expected structure are skipped;
+     * results keep the listing order. A failed lookup fails the whole scan, so callers keep
+     * the region's last known gateways rather than dropping the ones that could not be read.
+     */
+    private CompletableFuture<List<AwsIpRotatorGateway>> lookUpGateways(Reader reader, List<RestApi> apis) {
+        AwsIpRotatorGateway[] found = new AwsIpRotatorGateway[apis.size()];
+        int lanes = Math.min(LOOKUPS_PER_REGION, apis.size());
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < apis.size(); i += lanes) {
+                int index = i;
+                chain = chain.thenCompose(ignored -> lookUpGateway(reader, apis.get(index))
+                        .thenAccept(gateway -> found[index] = gateway));
+            }
+            laneFutures[lane] = chain;
         }
+
+        return CompletableFuture.allOf(laneFutures).thenApply(ignored -> {
+            List<AwsIpRotatorGateway> gateways = new ArrayList<>();
+            for (AwsIpRotatorGateway gateway : found) {
+                if (gateway != null) {
+                    gateways.add(gateway);
+                }
+            }
+            return gateways;
+        });
     }
 
     /**
-     * Get the resource ID for the /{proxy+} path
+     * The gateway for one API, or null if it has no /{proxy+} integration
      */
-    private String getProxyResourceId(String apiId) {
-        try {
-            GetResourcesRequest request = GetResourcesRequest.builder()
-                    .restApiId(apiId)
-                    .build();
-            GetResourcesResponse response = client.getResources(request);
+    private CompletableFuture<AwsIpRotatorGateway> lookUpGateway(Reader reader, RestApi api) {
+        CompletableFuture<String> targetUrl = findProxyIntegrationUri(reader, api.id(), null);
+        GetStagesRequest stagesRequest = GetStagesRequest.builder()
+                .restApiId(api.id())
+                .build();
+        CompletableFuture<String> stageName = reader.read(() -> reader.client.getStages(stagesRequest))
+                .handle((response, error) -> {
+                    // Return the first stage name, or "v1" if there is none or we can't get stages
+                    if (error == null && response.item() != null && !response.item().isEmpty()) {
+                        return response.item().get(0).stageName();
+                    }
+                    return "v1";
+                });
+
+        return targetUrl.thenCombine(stageName, (uri, stage) -> uri == null ? null : new AwsIpRotatorGateway(
+                api.id(),
+                api.name(),
+                api.createdDate(),
+                uri,
+                proxyUrl(api.id(), reader.region, stage),
+                reader.region
+        ));
+    }
 
+    /**
+     * The integration URI of the /{proxy+} resource's ANY method, read from resources with
+     * their methods embedded so no separate getIntegration call is needed
+     */
+    private CompletableFuture<String> findProxyIntegrationUri(Reader reader, String apiId, String position) {
+        GetResourcesRequest request = GetResourcesRequest.builder()
+                .restApiId(apiId)
+                .embed("methods")
+                .limit(PAGE_SIZE)
+                .position(position)
+                .build();
+        return reader.read(() -> reader.client.getResources(request)).thenCompose(response -> {
             for (Resource resource : response.items()) {
-                if ("/{proxy+}".equals(resource.path())) {
-                    return resource.id();
+                if (PROXY_RESOURCE_PATH.equals(resource.path())) {
+                    return CompletableFuture.completedFuture(proxyIntegrationUri(resource));
                 }
             }
-        } catch (Exception e) {
-            lastError = "Failed to get resource: " + e.getMessage();
+            String next = response.position();
+            if (next == null || next.isEmpty() || next.equals(position)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return findProxyIntegrationUri(reader, apiId, next);
+        });
+    }
+
+    private static String proxyIntegrationUri(Resource resource) {
+        Map<String, Method> methods = resource.resourceMethods();
+        Method anyMethod = methods != null ? methods.get("ANY") : null;
+        Integration integration = anyMethod != null ? anyMethod.methodIntegration() : null;
+        String uri = integration != null ? integration.uri() : null;
+
+        // Remove the /{proxy} suffix
+        if (uri != null && uri.endsWith("/{proxy}")) {
+            uri = uri.substring(0, uri.length() - "/{proxy}".length());
         }
-        return null;
+        return uri;
     }
 
     /**
-     * Get the integration URI for an API (using instance client)
+     * Delete a gateway in the given region. Completes exceptionally with a message saying
+     * what failed, which getLastError() also reports.
      */
-    private String getIntegrationUri(String apiId) {
-        return getIntegrationUriForClient(client, apiId);
+    public CompletableFuture<Void> deleteGatewayInRegionAsync(String apiId, String regionName) {
+        return deleteGatewayInRegionAsync(apiId, regionName, ControlPlaneScheduler.Priority.INTERACTIVE);
     }
 
     /**
-     * Get the integration URI for an API (using specified client)
+     * deleteGatewayInRegionAsync queued at the given priority
      */
-    private String getIntegrationUriForClient(ApiGatewayClient apiClient, String apiId) {
+    public CompletableFuture<Void> deleteGatewayInRegionAsync(String apiId, String regionName,
+                                                              ControlPlaneScheduler.Priority priority) {
+        String failure = "Failed to delete gateway in region " + regionName;
         try {
-            String resourceId = getProxyResourceIdForClient(apiClient, apiId);
-            if (resourceId == null) {
-                return null;
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
             }
-
-            GetIntegrationRequest request = GetIntegrationRequest.builder()
+            DeleteRestApiRequest request = DeleteRestApiRequest.builder()
                     .restApiId(apiId)
-                    .resourceId(resourceId)
-                    .httpMethod("ANY")
                     .build();
+            return describeFailure(scheduler.submit(ControlPlaneScheduler.Operation.DELETE, regionName, priority,
+                    () -> regionClient.deleteRestApi(request)).thenApply(response -> (Void) null), failure);
+        } catch (Exception e) {
+            return describeFailure(CompletableFuture.failedFuture(e), failure);
+        }
+    }
 
-            GetIntegrationResponse response = apiClient.getIntegration(request);
-            String uri = response.uri();
+    private <T> CompletableFuture<T> notInitialized() {
+        lastError = "Client not initialized";
+        return CompletableFuture.failedFuture(new IllegalStateException(lastError));
+    }
 
-            // Remove the /{proxy} suffix
-            if (uri != null && uri.endsWith("/{proxy}")) {
-                uri = uri.substring(0, uri.length() - "/{proxy}".length());
+    /**
+     * Replace the SDK's failure with one whose message says which operation failed, and
+     * record it as the last error
+     */
+    private <T> CompletableFuture<T> describeFailure(CompletableFuture<T> future, String failure) {
+        CompletableFuture<T> described = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                described.complete(value);
+                return;
             }
+            Throwable cause = unwrap(error);
+            String message = failure + ": " + cause.getMessage();
+            lastError = message;
+            described.completeExceptionally(new RuntimeException(message, cause));
+        });
+        return described;
+    }
 
-            return uri;
-        } catch (Exception e) {
-            return null;
+    /**
+     * The message of an async operation's failure, without CompletionException wrapping
+     */
+    public static String failureMessage(Throwable error) {
+        return unwrap(error).getMessage();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
         }
+        return error;
     }
 
     /**
-     * Get the proxy resource ID for an API (using specified client)
+     * Point a gateway in any region at a new URL: finds the /{proxy+} resource and replaces
+     * its integration URI, both through the scheduler
      */
-    private String getProxyResourceIdForClient(ApiGatewayClient apiClient, String apiId) {
+    public CompletableFuture<Void> updateGatewayAsync(String apiId, String regionName, String newTargetUrl,
+                                                      ControlPlaneScheduler.Priority priority) {
+        String failure = "Failed to update gateway in region " + regionName;
         try {
-            GetResourcesRequest request = GetResourcesRequest.builder()
-                    .restApiId(apiId)
-                    .build();
-            GetResourcesResponse response = apiClient.getResources(request);
+            ApiGatewayAsyncClient regionClient = asyncClientFor(regionName);
+            if (regionClient == null) {
+                return notInitialized();
+            }
+            String targetUrl = newTargetUrl.endsWith("/")
+                    ? newTargetUrl.substring(0, newTargetUrl.length() - 1) : newTargetUrl;
+            Reader reader = new Reader(regionClient, regionName, priority);
+            return describeFailure(findProxyResourceId(reader, apiId, null).thenCompose(resourceId -> {
+                if (resourceId == null) {
+                    throw new IllegalStateException("Unable to find proxy resource for API");
+                }
+                UpdateIntegrationRequest request = UpdateIntegrationRequest.builder()
+                        .restApiId(apiId)
+                        .resourceId(resourceId)
+                        .httpMethod("ANY")
+                        .patchOperations(
+                                PatchOperation.builder()
+                                        .op(Op.REPLACE)
+                                        .path("/uri")
+                                        .value(targetUrl + "/{proxy}")
+                                        .build()
+                        )
+                        .build();
+                return scheduler.submit(ControlPlaneScheduler.Operation.UPDATE, regionName, priority,
+                        () -> regionClient.updateIntegration(request));
+            }).thenApply(response -> (Void) null), failure);
+        } catch (Exception e) {
+            return describeFailure(CompletableFuture.failedFuture(e), failure);
+        }
+    }
 
+    private CompletableFuture<String> findProxyResourceId(Reader reader, String apiId, String position) {
+        GetResourcesRequest request = GetResourcesRequest.builder()
+                .restApiId(apiId)
+                .limit(PAGE_SIZE)
+                .position(position)
+                .build();
+        return reader.read(() -> reader.client.getResources(request)).thenCompose(response -> {
             for (Resource resource : response.items()) {
-                if ("/{proxy+}".equals(resource.path())) {
-                    return resource.id();
+                if (PROXY_RESOURCE_PATH.equals(resource.path())) {
+                    return CompletableFuture.completedFuture(resource.id());
                 }
             }
-        } catch (Exception e) {
-            // Silently skip
-        }
-        return null;
+            String next = response.position();
+            if (next == null || next.isEmpty() || next.equals(position)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return findProxyResourceId(reader, apiId, next);
+        });
     }
 
     /**
@@ -596,11 +817,23 @@ public class AwsIpRotatorManager {
     }
 
     /**
-     * Close the API Gateway client
+     * The scheduler pacing this manager's control-plane calls (for ETAs and counters)
+     */
+    public ControlPlaneScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Fail queued control-plane calls and close every cached regional client and the
+     * shared HTTP client
      */
-    public void close() {
-        if (client != null) {
-            client.close();
+    public synchronized void close() {
+        scheduler.close();
+        closeRegionClients();
+        credentialsProvider = null;
+        if (asyncHttpClient != null) {
+            asyncHttpClient.close();
+            asyncHttpClient = null;
         }
     }
 
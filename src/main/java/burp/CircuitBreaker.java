@@ -0,0 +1,138 @@
+package burp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-gateway circuit breaker with closed, open and half-open states.
+ *
+ * CLOSED lets every request through and counts consecutive failures (error status,
+ * timeout, or a response slower than the latency threshold). Reaching the failure
+ * threshold trips it OPEN, which rejects selection until the open period has passed.
+ * The first selection after that moves it to HALF_OPEN, which admits a limited number
+ * of trial requests: if they all succeed the breaker closes, any failure re-opens it.
+ * All transitions are compare-and-set; the closed fast path is a single volatile read.
+ */
+public final class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Immutable breaker tuning, published with each routing snapshot
+     */
+    public static final class Settings {
+        public static final Settings DEFAULT = new Settings(5, 0, 30, 3);
+
+        public final int failureThreshold;   // consecutive failures before opening
+        public final long latencyThresholdMs; // slower responses count as failures (0 = off)
+        public final long openSeconds;        // how long to reject before probing
+        public final int trialRequests;       // half-open probes required to close
+
+        public Settings(int failureThreshold, long latencyThresholdMs, long openSeconds, int trialRequests) {
+            this.failureThreshold = Math.max(1, failureThreshold);
+            this.latencyThresholdMs = Math.max(0, latencyThresholdMs);
+            this.openSeconds = Math.max(1, openSeconds);
+            this.trialRequests = Math.max(1, trialRequests);
+        }
+
+        boolean isTooSlow(long latencyNanos) {
+            return latencyThresholdMs > 0 && latencyNanos > TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        }
+    }
+
+    private static final State[] STATES = State.values();
+
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+    private volatile long openedAtNanos;
+
+    public State getState() {
+        return STATES[state.get()];
+    }
+
+    /**
+     * Ask to send a request through this gateway. In HALF_OPEN this consumes a trial permit,
+     * so only call it for the gateway that will actually be used.
+     */
+    public boolean tryAcquire(Settings settings) {
+        int current = state.get();
+        if (current == State.CLOSED.ordinal()) {
+            return true;
+        }
+
+        if (current == State.OPEN.ordinal()) {
+            if (System.nanoTime() - openedAtNanos < TimeUnit.SECONDS.toNanos(settings.openSeconds)) {
+                return false;
+            }
+            if (state.compareAndSet(current, State.HALF_OPEN.ordinal())) {
+                trialSuccesses.set(0);
+                trialPermits.set(settings.trialRequests);
+            }
+        }
+
+        if (state.get() == State.HALF_OPEN.ordinal()) {
+            return trialPermits.getAndDecrement() > 0;
+        }
+        return state.get() == State.CLOSED.ordinal();
+    }
+
+    /**
+     * Record a completed request and how long it took
+     */
+    public void onResponse(boolean failed, long latencyNanos, Settings settings) {
+        if (failed || settings.isTooSlow(latencyNanos)) {
+            onFailure(settings);
+        } else {
+            onSuccess(settings);
+        }
+    }
+
+    public void onSuccess(Settings settings) {
+        int current = state.get();
+        if (current == State.CLOSED.ordinal()) {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+        } else if (current == State.HALF_OPEN.ordinal()
+                && trialSuccesses.incrementAndGet() >= settings.trialRequests
+                && state.compareAndSet(current, State.CLOSED.ordinal())) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public void onFailure(Settings settings) {
+        int current = state.get();
+        if (current == State.CLOSED.ordinal()) {
+            if (consecutiveFailures.incrementAndGet() >= settings.failureThreshold) {
+                open(current);
+            }
+        } else if (current == State.HALF_OPEN.ordinal()) {
+            open(current);
+        }
+    }
+
+    private void open(int from) {
+        // Stamp the time first so a concurrent tryAcquire never sees OPEN with a stale timestamp
+        openedAtNanos = System.nanoTime();
+        state.compareAndSet(from, State.OPEN.ordinal());
+    }
+
+    /**
+     * Short description for the Domain Mappings gateway list
+     */
+    public String describe() {
+        switch (getState()) {
+            case OPEN:
+                return "circuit open";
+            case HALF_OPEN:
+                return "circuit half-open";
+            default:
+                return "circuit closed";
+        }
+    }
+}
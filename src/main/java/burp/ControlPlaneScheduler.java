@@ -0,0 +1,321 @@
+package burp;
+
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.apigateway.model.TooManyRequestsException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Paces API Gateway control-plane calls to the account's per-region quotas.
+ *
+ * API Gateway allows only one ImportRestApi every few seconds, one CreateDeployment every
+ * few more and one DeleteRestApi every 30 seconds per account and region, plus about 10
+ * calls per second in total. Every call is queued with an operation type, a region and a
+ * priority. Dispatch passes, run on the extension's scheduler pool and serialized by this
+ * object's lock, start the highest-priority call whose operation-and-region bucket and
+ * region bucket both have a permit. A throttled call is re-queued after a full-jitter
+ * exponential backoff, and its bucket pauses for that long.
+ */
+public final class ControlPlaneScheduler {
+    public enum Operation {
+        IMPORT(1.0 / 3, 1),
+        DEPLOY(1.0 / 5, 1),
+        DELETE(1.0 / 30, 1),
+        UPDATE(10, 40), // no dedicated quota; only the region-wide limit applies
+        READ(10, 40);
+
+        final double permitsPerSecond;
+        final int burst;
+
+        Operation(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        long intervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+    }
+
+    /**
+     * Queued calls start in this order; within a priority, in submission order
+     */
+    public enum Priority {
+        INTERACTIVE, // a user is waiting on the result
+        NORMAL,      // bulk work with a progress dialog
+        BACKGROUND   // inventory reconciliation
+    }
+
+    private static final double REGION_PERMITS_PER_SECOND = 10; // all operations in one region
+    private static final int REGION_BURST = 40;
+    private static final int MAX_IN_FLIGHT = 32;
+    private static final int MAX_THROTTLE_RETRIES = 8;
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final ScheduledExecutorService dispatcher;
+    private final List<Task<?>> queue = new ArrayList<>(); // sorted by priority, then sequence
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final Map<String, Long> pausedUntilNanos = new HashMap<>();
+    private long sequence;
+    private int inFlight;
+    private long wakeUpAtNanos = Long.MAX_VALUE;
+    private boolean closed;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ControlPlaneScheduler(ScheduledExecutorService dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Queue a call. The supplier is invoked on a dispatcher thread once permits are
+     * available and must start the call without blocking.
+     */
+    public <T> CompletableFuture<T> submit(Operation operation, String region, Priority priority,
+                                           Supplier<CompletableFuture<T>> call) {
+        Task<T> task = new Task<>(operation, region, priority, call);
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Scheduler closed"));
+            }
+            task.sequence = sequence++;
+            enqueue(task);
+        }
+        wake();
+        return task.result;
+    }
+
+    private void wake() {
+        try {
+            dispatcher.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+            // The extension is unloading; close() fails whatever is still queued
+        }
+    }
+
+    private void enqueue(Task<?> task) {
+        int index = queue.size();
+        while (index > 0 && task.before(queue.get(index - 1))) {
+            index--;
+        }
+        queue.add(index, task);
+    }
+
+    /**
+     * Start every queued call that has permits, in priority order, and wake up again when
+     * the next waiting call could get one
+     */
+    private void dispatch() {
+        List<Task<?>> ready = new ArrayList<>();
+        long now = System.nanoTime();
+        long nextWakeUp = Long.MAX_VALUE;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            wakeUpAtNanos = Long.MAX_VALUE;
+            Iterator<Task<?>> iterator = queue.iterator();
+            while (iterator.hasNext() && inFlight + ready.size() < MAX_IN_FLIGHT) {
+                Task<?> task = iterator.next();
+                if (task.result.isDone()) {
+                    iterator.remove(); // cancelled while queued
+                    continue;
+                }
+                long wait = Math.max(task.notBeforeNanos - now, pausedNanos(task, now));
+                if (wait <= 0) {
+                    wait = tryAcquire(task);
+                }
+                if (wait > 0) {
+                    nextWakeUp = Math.min(nextWakeUp, now + wait);
+                    continue;
+                }
+                iterator.remove();
+                ready.add(task);
+            }
+            inFlight += ready.size();
+            if (nextWakeUp != Long.MAX_VALUE && nextWakeUp < wakeUpAtNanos) {
+                wakeUpAtNanos = nextWakeUp;
+                try {
+                    dispatcher.schedule(this::dispatch, nextWakeUp - now, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // The extension is unloading
+                }
+            }
+        }
+        for (Task<?> task : ready) {
+            start(task);
+        }
+    }
+
+    private long pausedNanos(Task<?> task, long now) {
+        Long pausedUntil = pausedUntilNanos.get(task.bucketKey());
+        return pausedUntil != null ? pausedUntil - now : 0;
+    }
+
+    /**
+     * Take the operation and region permits together; 0 if taken, else nanos to wait
+     */
+    private long tryAcquire(Task<?> task) {
+        TokenBucket operationBucket = operationBucket(task.operation, task.region);
+        TokenBucket regionBucket = regionBucket(task.region);
+        if (!operationBucket.tryAcquire()) {
+            return Math.max(1, operationBucket.nanosUntilAvailable());
+        }
+        if (!regionBucket.tryAcquire()) {
+            operationBucket.release();
+            return Math.max(1, regionBucket.nanosUntilAvailable());
+        }
+        return 0;
+    }
+
+    private TokenBucket operationBucket(Operation operation, String region) {
+        return buckets.computeIfAbsent(operation + "/" + region,
+                key -> new TokenBucket(operation.permitsPerSecond, operation.burst));
+    }
+
+    private TokenBucket regionBucket(String region) {
+        return buckets.computeIfAbsent(region, key -> new TokenBucket(REGION_PERMITS_PER_SECOND, REGION_BURST));
+    }
+
+    private <T> void start(Task<T> task) {
+        CompletableFuture<T> call;
+        try {
+            call = task.call.get();
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((value, error) -> {
+            boolean retry = false;
+            synchronized (this) {
+                inFlight--;
+                if (error != null && isThrottling(error) && task.attempt < MAX_THROTTLE_RETRIES
+                        && !task.result.isDone() && !closed) {
+                    retry = true;
+                    task.attempt++;
+                    long now = System.nanoTime();
+                    long backoff = backoffNanos(task.attempt);
+                    task.notBeforeNanos = now + backoff;
+                    pausedUntilNanos.merge(task.bucketKey(), now + backoff, Math::max);
+                    enqueue(task);
+                }
+            }
+            if (retry) {
+                throttled.increment();
+            } else if (error != null) {
+                failed.increment();
+                task.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                completed.increment();
+                task.result.complete(value);
+            }
+            wake();
+        });
+    }
+
+    static boolean isThrottling(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof TooManyRequestsException
+                || (error instanceof SdkServiceException && ((SdkServiceException) error).isThrottlingException());
+    }
+
+    /**
+     * Full jitter: random(0, base * 2^(attempt - 1)), capped
+     */
+    private static long backoffNanos(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 16));
+        return TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Estimated time for the given number of items, each needing every listed operation in
+     * one region, to get through that region's buckets. Items are paced by the slowest
+     * operation; the current wait for a permit or a throttling pause is added.
+     */
+    public synchronized long estimateMillis(String region, int items, Operation... operations) {
+        if (items <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long slowestInterval = 0;
+        long currentWait = 0;
+        for (Operation operation : operations) {
+            slowestInterval = Math.max(slowestInterval, operation.intervalNanos());
+            currentWait = Math.max(currentWait, operationBucket(operation, region).nanosUntilAvailable());
+            Long pausedUntil = pausedUntilNanos.get(operation + "/" + region);
+            if (pausedUntil != null) {
+                currentWait = Math.max(currentWait, pausedUntil - now);
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(currentWait + (items - 1) * slowestInterval)
+                + TimeUnit.SECONDS.toMillis(1); // roughly one call's own latency
+    }
+
+    /**
+     * Queue and throttling counters for the UI
+     */
+    public synchronized String describe() {
+        return String.format("%d queued, %d in flight, %d done, %d throttled and retried, %d failed",
+                queue.size(), inFlight, completed.sum(), throttled.sum(), failed.sum());
+    }
+
+    /**
+     * Fail every queued call and stop dispatching; calls already started still complete
+     */
+    public void close() {
+        List<Task<?>> pending;
+        synchronized (this) {
+            closed = true;
+            pending = new ArrayList<>(queue);
+            queue.clear();
+        }
+        for (Task<?> task : pending) {
+            task.result.completeExceptionally(new CancellationException("AWS client closed"));
+        }
+    }
+
+    private static final class Task<T> {
+        final Operation operation;
+        final String region;
+        final Priority priority;
+        final Supplier<CompletableFuture<T>> call;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        long sequence;
+        int attempt;
+        long notBeforeNanos = System.nanoTime(); // due at once; nanoTime values only compare by difference
+
+        Task(Operation operation, String region, Priority priority, Supplier<CompletableFuture<T>> call) {
+            this.operation = operation;
+            this.region = region;
+            this.priority = priority;
+            this.call = call;
+        }
+
+        boolean before(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority < 0 : sequence < other.sequence;
+        }
+
+        String bucketKey() {
+            return operation + "/" + region;
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package burp;
 
+import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Configuration for a domain with multiple AWS IP Rotator gateways and rotation strategy
+ * Configuration for a domain with multiple AWS IP Rotator gateways and rotation strategy.
+ * Edited from the UI only; the HTTP handler routes through the DomainRoute published from it.
  */
 public class DomainConfig {
     public enum RotationStrategy {
         ROUND_ROBIN("Round Robin - Cycle through gateways sequentially"),
         RANDOM("Random - Pick a random gateway each time"),
-        WEIGHTED("Weighted Random - Prefer gateways based on weight");
+        WEIGHTED("Weighted Random - Prefer gateways based on weight"),
+        FASTEST_OF_TWO("Fastest of Two - Pick the lower-latency of two random gateways"),
+        LEAST_OUTSTANDING("Least Outstanding - Pick the gateway with the fewest requests in flight");
 
         private final String description;
 
@@ -31,17 +34,35 @@ public class DomainConfig {
     }
 
     private final String domain;
-    private final List<GatewayConfig> gateways;
+    private final List<GatewayEndpoint> gateways;
     private RotationStrategy strategy;
-    private final AtomicInteger roundRobinIndex;
-    private final Random random;
+    private int burstSize;
+    private final StripedRoundRobin roundRobin;
+    private final GatewayAffinity affinity;
+    private final RetryStats retryStats;
+    private final Random seededRandom; // null = per-thread ThreadLocalRandom
 
     public DomainConfig(String domain) {
+        this(domain, null);
+    }
+
+    /**
+     * Create a domain whose RANDOM and WEIGHTED picks follow a fixed seed (for reproducible tests).
+     * The seeded generator is shared by all threads, so only use it where contention does not matter.
+     */
+    public DomainConfig(String domain, long seed) {
+        this(domain, new Random(seed));
+    }
+
+    private DomainConfig(String domain, Random seededRandom) {
         this.domain = domain;
         this.gateways = new ArrayList<>();
         this.strategy = RotationStrategy.ROUND_ROBIN;
-        this.roundRobinIndex = new AtomicInteger(0);
-        this.random = new Random();
+        this.burstSize = 1;
+        this.roundRobin = new StripedRoundRobin();
+        this.affinity = new GatewayAffinity();
+        this.retryStats = new RetryStats();
+        this.seededRandom = seededRandom;
     }
 
     public String getDomain() {
@@ -49,21 +70,57 @@ public class DomainConfig {
     }
 
     public List<GatewayConfig> getGateways() {
+        List<GatewayConfig> result = new ArrayList<>(gateways.size());
+        for (GatewayEndpoint endpoint : gateways) {
+            result.add(endpoint.getGateway());
+        }
+        return result;
+    }
+
+    public List<GatewayEndpoint> getEndpoints() {
         return new ArrayList<>(gateways);
     }
 
-    public void addGateway(GatewayConfig gateway) {
-        if (!gateways.contains(gateway)) {
-            gateways.add(gateway);
+    /**
+     * Add a gateway, parsing its URL once into a routing endpoint
+     */
+    public void addGateway(GatewayConfig gateway) throws MalformedURLException {
+        if (indexOf(gateway) < 0) {
+            gateways.add(GatewayEndpoint.parse(gateway));
         }
     }
 
     public void removeGateway(GatewayConfig gateway) {
-        gateways.remove(gateway);
+        int index = indexOf(gateway);
+        if (index >= 0) {
+            gateways.remove(index);
+            affinity.reset();
+        }
+    }
+
+    /**
+     * Replace a gateway's settings in place, keeping its position and runtime health
+     */
+    public void updateGateway(GatewayConfig updated) {
+        int index = indexOf(updated);
+        if (index >= 0) {
+            gateways.set(index, gateways.get(index).withGateway(updated));
+            affinity.reset();
+        }
+    }
+
+    private int indexOf(GatewayConfig gateway) {
+        for (int i = 0; i < gateways.size(); i++) {
+            if (gateways.get(i).getGateway().equals(gateway)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public void clearGateways() {
         gateways.clear();
+        affinity.reset();
     }
 
     public int getGatewayCount() {
@@ -79,69 +136,53 @@ public class DomainConfig {
     }
 
     /**
-     * Get the next gateway URL based on the rotation strategy
+     * Number of consecutive requests sent through the same gateway (1 = rotate on every request)
      */
-    public String getNextGatewayUrl() {
-        if (gateways.isEmpty()) {
-            return null;
-        }
-
-        if (gateways.size() == 1) {
-            return gateways.get(0).getGatewayUrl();
-        }
-
-        switch (strategy) {
-            case ROUND_ROBIN:
-                return getRoundRobinGateway();
-            case RANDOM:
-                return getRandomGateway();
-            case WEIGHTED:
-                return getWeightedRandomGateway();
-            default:
-                return gateways.get(0).getGatewayUrl();
-        }
+    public int getBurstSize() {
+        return burstSize;
     }
 
-    private String getRoundRobinGateway() {
-        int index = roundRobinIndex.getAndUpdate(i -> (i + 1) % gateways.size());
-        return gateways.get(index).getGatewayUrl();
+    public void setBurstSize(int burstSize) {
+        this.burstSize = Math.max(1, burstSize);
+        affinity.reset();
     }
 
-    private String getRandomGateway() {
-        int index = random.nextInt(gateways.size());
-        return gateways.get(index).getGatewayUrl();
+    /**
+     * Throughput and IP diversity measured since the last reset
+     */
+    public String getBurstStats() {
+        return affinity.describe(gateways);
     }
 
-    private String getWeightedRandomGateway() {
-        // Calculate total weight
-        int totalWeight = gateways.stream()
-                .mapToInt(GatewayConfig::getWeight)
-                .sum();
-
-        // Pick a random number between 0 and totalWeight
-        int randomValue = random.nextInt(totalWeight);
+    public void resetBurstStats() {
+        affinity.resetStats();
+    }
 
-        // Find which gateway this falls into
-        int cumulativeWeight = 0;
-        for (GatewayConfig gateway : gateways) {
-            cumulativeWeight += gateway.getWeight();
-            if (randomValue < cumulativeWeight) {
-                return gateway.getGatewayUrl();
-            }
-        }
+    /**
+     * Counters for requests resent through an alternate gateway
+     */
+    public String getRetryStats() {
+        return retryStats.describe();
+    }
 
-        // Fallback (shouldn't reach here)
-        return gateways.get(0).getGatewayUrl();
+    /**
+     * Build an immutable routing view of the current gateways and strategy
+     */
+    public DomainRoute toRoute(CircuitBreaker.Settings breakerSettings, RateLimiter rateLimiter,
+                               TrafficMetrics metrics) {
+        return new DomainRoute(domain, strategy, gateways.toArray(new GatewayEndpoint[0]),
+                roundRobin, seededRandom, burstSize, affinity, retryStats, breakerSettings, rateLimiter, metrics);
     }
 
     /**
      * Get summary of this domain configuration
      */
     public String getSummary() {
-        return String.format("%s (%d gateway%s, %s)",
+        return String.format("%s (%d gateway%s, %s%s)",
                 domain,
                 gateways.size(),
                 gateways.size() == 1 ? "" : "s",
-                strategy.toString());
+                strategy.toString(),
+                burstSize > 1 ? ", burst " + burstSize : "");
     }
 }
@@ -0,0 +1,296 @@
+package burp;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Immutable routing view of a DomainConfig, published inside a RoutingSnapshot.
+ *
+ * The HTTP handler only ever reads routes, so gateway selection needs no locks and
+ * no defensive copies. The round robin counter is borrowed from the owning
+ * DomainConfig so it carries over when a new snapshot is published. RANDOM and
+ * WEIGHTED draw from ThreadLocalRandom, so concurrent Burp tools never contend on a
+ * shared seed, unless the DomainConfig was created with a fixed seed. Burst affinity
+ * is borrowed the same way, so a burst survives unrelated config edits.
+ *
+ * Gateways over their rate limits are skipped like unhealthy ones. Only when every
+ * otherwise-available gateway is rate limited does the route apply back pressure: it
+ * parks the calling thread until a permit frees up (bounded by the max wait) or
+ * returns null so the request goes out directly.
+ */
+public final class DomainRoute {
+    private final String domain;
+    private final DomainConfig.RotationStrategy strategy;
+    private final GatewayEndpoint[] gateways;
+    private final StripedRoundRobin roundRobin;
+    private final Random seededRandom;
+    private final int burstSize;
+    private final GatewayAffinity affinity;
+    private final RetryStats retryStats;
+    private final TrafficMetrics metrics;
+    private final AliasTable weightedTable;
+    private final CircuitBreaker.Settings breakerSettings;
+    private final RateLimiter rateLimiter;
+    private final RateLimiter.Settings rateLimits;
+
+    DomainRoute(String domain, DomainConfig.RotationStrategy strategy, GatewayEndpoint[] gateways,
+                StripedRoundRobin roundRobin, Random seededRandom, int burstSize, GatewayAffinity affinity,
+                RetryStats retryStats, CircuitBreaker.Settings breakerSettings, RateLimiter rateLimiter,
+                TrafficMetrics metrics) {
+        this.domain = domain;
+        this.strategy = strategy;
+        this.gateways = gateways;
+        this.roundRobin = roundRobin;
+        this.seededRandom = seededRandom;
+        this.burstSize = burstSize;
+        this.affinity = affinity;
+        this.retryStats = retryStats;
+        this.breakerSettings = breakerSettings;
+        this.rateLimiter = rateLimiter;
+        this.rateLimits = rateLimiter.getSettings();
+        this.metrics = metrics;
+        this.weightedTable = strategy == DomainConfig.RotationStrategy.WEIGHTED && gateways.length > 1
+                ? new AliasTable(weightsOf(gateways))
+                : null;
+    }
+
+    private static int[] weightsOf(GatewayEndpoint[] gateways) {
+        int[] weights = new int[gateways.length];
+        for (int i = 0; i < gateways.length; i++) {
+            weights[i] = gateways[i].getGateway().getWeight();
+        }
+        return weights;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public DomainConfig.RotationStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getGatewayCount() {
+        return gateways.length;
+    }
+
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    RetryStats getRetryStats() {
+        return retryStats;
+    }
+
+    /**
+     * Traffic metrics for this domain
+     */
+    public TrafficMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the next gateway endpoint based on the rotation strategy, skipping gateways that are
+     * ejected or whose circuit breaker is open. Inside a burst the previous gateway is reused
+     * while it stays available. If no gateway is available the strategy's first pick is used
+     * anyway so traffic keeps flowing. Returns null if the request should not be rotated
+     * (no gateways, or all rate limited with the DIRECT saturation action).
+     */
+    public GatewayEndpoint next() {
+        if (gateways.length == 0) {
+            return null;
+        }
+
+        GatewayEndpoint endpoint = select();
+        if (endpoint == null) {
+            endpoint = awaitPermit();
+            if (endpoint == null) {
+                return null;
+            }
+        }
+        affinity.record(endpoint);
+        return endpoint;
+    }
+
+    /**
+     * Pick an available gateway other than the one that just failed, for a retry. Never waits
+     * for rate limits; returns null if no other gateway can take the request right now.
+     */
+    public GatewayEndpoint nextAlternate(GatewayEndpoint failed) {
+        if (gateways.length < 2) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < gateways.length; attempt++) {
+            GatewayEndpoint candidate = pick();
+            if (candidate != failed && candidate.tryAcquire(breakerSettings)) {
+                return candidate;
+            }
+        }
+
+        for (GatewayEndpoint candidate : gateways) {
+            if (candidate != failed && candidate.tryAcquire(breakerSettings)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Choose an available gateway, or return null if every available gateway is rate limited
+     */
+    private GatewayEndpoint select() {
+        if (gateways.length == 1) {
+            GatewayEndpoint only = gateways[0];
+            return only.tryAcquire(breakerSettings) || saturationWaitNanos() == 0 ? only : null;
+        }
+
+        GatewayEndpoint current = affinity.continueBurst(burstSize);
+        if (current != null && current.tryAcquire(breakerSettings)) {
+            return current;
+        }
+
+        GatewayEndpoint first = pick();
+        if (first.tryAcquire(breakerSettings)) {
+            return first;
+        }
+
+        // Re-draw with the same strategy so available gateways keep their relative share
+        for (int attempt = 1; attempt < gateways.length; attempt++) {
+            GatewayEndpoint candidate = pick();
+            if (candidate.tryAcquire(breakerSettings)) {
+                return candidate;
+            }
+        }
+
+        for (GatewayEndpoint candidate : gateways) {
+            if (candidate.tryAcquire(breakerSettings)) {
+                return candidate;
+            }
+        }
+        return saturationWaitNanos() == 0 ? first : null;
+    }
+
+    /**
+     * Shortest wait until a rate limited gateway frees up, or 0 if rate limits are not
+     * what is holding the request back (disabled, or every gateway ejected / breaker open)
+     */
+    private long saturationWaitNanos() {
+        if (!rateLimits.isEnabled()) {
+            return 0;
+        }
+        long shortest = Long.MAX_VALUE;
+        for (GatewayEndpoint candidate : gateways) {
+            long wait = candidate.nanosUntilPermitted();
+            if (wait >= 0 && wait < shortest) {
+                shortest = wait;
+            }
+        }
+        // A zero wait means a permit freed up since select() ran; report a minimal wait
+        return shortest == Long.MAX_VALUE ? 0 : Math.max(1, shortest);
+    }
+
+    /**
+     * Every available gateway is rate limited: wait for a permit or give up on rotation
+     */
+    private GatewayEndpoint awaitPermit() {
+        if (rateLimits.onSaturated == RateLimiter.SaturatedAction.DIRECT) {
+            rateLimiter.recordSentDirect();
+            return null;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rateLimits.maxWaitMs);
+        while (true) {
+            long wait = saturationWaitNanos();
+            if (wait == 0 || System.nanoTime() + wait > deadline || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            LockSupport.parkNanos(wait);
+            GatewayEndpoint endpoint = select();
+            if (endpoint != null) {
+                rateLimiter.recordWaited();
+                return endpoint;
+            }
+        }
+
+        // Bounded back pressure: past the max wait, send over the limit rather than stall Burp
+        rateLimiter.recordSentOverLimit();
+        return pick();
+    }
+
+    private GatewayEndpoint pick() {
+        switch (strategy) {
+            case ROUND_ROBIN:
+                return getRoundRobinGateway();
+            case RANDOM:
+                return getRandomGateway();
+            case WEIGHTED:
+                return getWeightedRandomGateway();
+            case FASTEST_OF_TWO:
+                return getFastestOfTwoGateway();
+            case LEAST_OUTSTANDING:
+                return getLeastOutstandingGateway();
+            default:
+                return gateways[0];
+        }
+    }
+
+    private GatewayEndpoint getRoundRobinGateway() {
+        return gateways[roundRobin.next(gateways.length)];
+    }
+
+    private Random random() {
+        return seededRandom != null ? seededRandom : ThreadLocalRandom.current();
+    }
+
+    private GatewayEndpoint getRandomGateway() {
+        return gateways[random().nextInt(gateways.length)];
+    }
+
+    private GatewayEndpoint getWeightedRandomGateway() {
+        // Alias table is precomputed whenever the route is published
+        return gateways[weightedTable.sample(random())];
+    }
+
+    private GatewayEndpoint getFastestOfTwoGateway() {
+        // Power of two choices: sample two distinct gateways, keep the one with lower smoothed latency.
+        // The slowest gateway is never chosen but everything else still gets traffic.
+        if (gateways.length == 1) {
+            return gateways[0]; // reachable from awaitPermit, which does not special-case one gateway
+        }
+        Random random = random();
+        int first = random.nextInt(gateways.length);
+        int second = random.nextInt(gateways.length - 1);
+        if (second >= first) {
+            second++;
+        }
+        GatewayEndpoint a = gateways[first];
+        GatewayEndpoint b = gateways[second];
+        // An unmeasured gateway scores as the other candidate, so the pair is a coin flip
+        // instead of the new gateway winning every draw until its first response
+        double latencyA = a.getLatency().getAverageMillis(-1);
+        double latencyB = b.getLatency().getAverageMillis(latencyA);
+        if (latencyA < 0) {
+            latencyA = latencyB;
+        }
+        return latencyA <= latencyB ? a : b;
+    }
+
+    private GatewayEndpoint getLeastOutstandingGateway() {
+        // Start the scan at a rotating offset so ties are spread instead of always hitting gateway 0
+        int start = roundRobin.next(gateways.length);
+        GatewayEndpoint best = gateways[start];
+        int bestOutstanding = best.getOutstanding();
+        for (int i = 1; i < gateways.length && bestOutstanding > 0; i++) {
+            GatewayEndpoint candidate = gateways[(start + i) % gateways.length];
+            int outstanding = candidate.getOutstanding();
+            if (outstanding < bestOutstanding) {
+                best = candidate;
+                bestOutstanding = outstanding;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,74 @@
+package burp;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The extension's threads, in two named, fixed-size pools shut down together when the
+ * extension unloads:
+ *
+ * - "scheduler": periodic and delayed work (maintenance, the rewrite log drain, the
+ *   metrics sampler, control-plane dispatch)
+ * - "aws-callbacks": completions of the async AWS SDK client
+ *
+ * No extension thread blocks on AWS: calls are async, paced per operation and region by
+ * the ControlPlaneScheduler, and UI code reacts to their futures on the EDT. The thread
+ * counts here are the extension's whole background footprint.
+ *
+ * Every pool thread is a daemon, so nothing here keeps Burp from exiting.
+ */
+public final class ExecutionService {
+    private static final int SCHEDULER_THREADS = 2;
+    private static final int CALLBACK_THREADS = 4;
+    private static final long SHUTDOWN_WAIT_MS = 2000;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService callbacks;
+
+    public ExecutionService() {
+        scheduler = Executors.newScheduledThreadPool(SCHEDULER_THREADS, named("scheduler"));
+        callbacks = Executors.newFixedThreadPool(CALLBACK_THREADS, named("aws-callbacks"));
+    }
+
+    private static ThreadFactory named(String pool) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, "AWS IP Rotator " + pool + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * For periodic and delayed tasks; they must not block
+     */
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * For AWS SDK future completions (FUTURE_COMPLETION_EXECUTOR)
+     */
+    public ExecutorService callbacks() {
+        return callbacks;
+    }
+
+    /**
+     * Stop every pool (extension unload). Scheduled tasks never run again; SDK completions
+     * already handed over get a short grace period to finish.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        callbacks.shutdown();
+        try {
+            callbacks.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        callbacks.shutdownNow();
+    }
+}
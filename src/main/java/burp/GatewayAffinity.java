@@ -0,0 +1,88 @@
+package burp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-domain connection affinity for burst mode, plus the counters that show what it costs.
+ *
+ * With a burst size of N, N consecutive requests go through the same gateway before the
+ * strategy picks again, so Burp can reuse its keep-alive TLS connection instead of paying
+ * a fresh handshake to a new execute-api host every time. Fewer gateway switches means
+ * less IP diversity; the counters measure both sides of that trade-off. Bursts are
+ * counted per domain, not per thread, so concurrent tools share (and may split) a burst.
+ */
+final class GatewayAffinity {
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile GatewayEndpoint current;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder switches = new LongAdder();
+    private volatile long measuringSinceNanos = System.nanoTime();
+
+    /**
+     * The gateway to keep using if the next request is still inside a burst, else null
+     */
+    GatewayEndpoint continueBurst(int burstSize) {
+        if (burstSize <= 1 || sequence.getAndIncrement() % burstSize == 0) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Record the gateway a request was routed through
+     */
+    void record(GatewayEndpoint endpoint) {
+        requests.increment();
+        if (current != endpoint) {
+            current = endpoint;
+            switches.increment();
+        }
+    }
+
+    /**
+     * Forget the current gateway (e.g. it was removed) so the next request starts a new burst
+     */
+    void reset() {
+        current = null;
+        sequence.set(0);
+    }
+
+    /**
+     * Restart the throughput and diversity measurement
+     */
+    void resetStats() {
+        requests.reset();
+        switches.reset();
+        measuringSinceNanos = System.nanoTime();
+    }
+
+    /**
+     * Throughput and IP diversity since the last reset. Latency is the mean of the
+     * domain's measured gateway latencies, where skipped TLS handshakes show up.
+     */
+    String describe(Iterable<GatewayEndpoint> endpoints) {
+        long count = requests.sum();
+        if (count == 0) {
+            return "No requests measured yet";
+        }
+
+        double seconds = Math.max(1e-3, (System.nanoTime() - measuringSinceNanos) / 1e9);
+        long switchCount = Math.max(1, switches.sum());
+
+        double latencyTotal = 0;
+        int measured = 0;
+        for (GatewayEndpoint endpoint : endpoints) {
+            if (endpoint.getLatency().isMeasured()) {
+                latencyTotal += endpoint.getLatency().getAverageMillis();
+                measured++;
+            }
+        }
+
+        return String.format("%d req, %.1f req/s, %s; new gateway every %.1f req (%d switches)",
+                count, count / seconds,
+                measured > 0 ? String.format("~%.0f ms avg", latencyTotal / measured) : "latency n/a",
+                (double) count / switchCount, switchCount);
+    }
+}
@@ -0,0 +1,249 @@
+package burp;
+
+import burp.api.montoya.http.HttpService;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-parsed routing target for a single AWS IP Rotator gateway.
+ *
+ * Built once when a gateway is added to a domain so the HTTP handler never has to
+ * parse the gateway URL or allocate a new HttpService per request. The addressing
+ * fields are immutable; the attached GatewayHealth, CircuitBreaker, LatencyTracker and
+ * outstanding-request counter track this gateway's traffic. Rate limit buckets and
+ * traffic metrics are attached by their registries whenever routing is published.
+ */
+public final class GatewayEndpoint {
+    private final GatewayConfig gateway;
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final String basePath;
+    private final HttpService httpService;
+    private final GatewayHealth health;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyTracker latency;
+    private final AtomicInteger outstanding;
+    private volatile TokenBucket gatewayBucket;
+    private volatile TokenBucket regionBucket;
+    private volatile TrafficMetrics metrics = new TrafficMetrics();
+    private volatile TrafficMetrics regionMetrics = new TrafficMetrics();
+
+    private GatewayEndpoint(GatewayConfig gateway, String host, int port, boolean secure, String basePath,
+                            HttpService httpService, GatewayHealth health, CircuitBreaker circuitBreaker,
+                            LatencyTracker latency, AtomicInteger outstanding) {
+        this.gateway = gateway;
+        this.host = host;
+        this.port = port;
+        this.secure = secure;
+        this.basePath = basePath;
+        this.httpService = httpService;
+        this.health = health;
+        this.circuitBreaker = circuitBreaker;
+        this.latency = latency;
+        this.outstanding = outstanding;
+    }
+
+    /**
+     * Parse the gateway URL into an endpoint
+     */
+    public static GatewayEndpoint parse(GatewayConfig gateway) throws MalformedURLException {
+        URL url = new URL(gateway.getGatewayUrl());
+        boolean secure = url.getProtocol().equals("https");
+        int port = url.getPort() != -1 ? url.getPort() : (secure ? 443 : 80);
+
+        // Ensure gateway path ends with /
+        String basePath = url.getPath();
+        if (!basePath.endsWith("/")) {
+            basePath += "/";
+        }
+
+        return new GatewayEndpoint(gateway, url.getHost(), port, secure, basePath,
+                HttpService.httpService(url.getHost(), port, secure), new GatewayHealth(), new CircuitBreaker(),
+                new LatencyTracker(), new AtomicInteger());
+    }
+
+    /**
+     * Same gateway URL with updated settings (e.g. weight), keeping its runtime health
+     */
+    public GatewayEndpoint withGateway(GatewayConfig updated) {
+        return new GatewayEndpoint(updated, host, port, secure, basePath, httpService, health, circuitBreaker, latency,
+                outstanding);
+    }
+
+    public GatewayConfig getGateway() {
+        return gateway;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public String getScheme() {
+        return secure ? "https" : "http";
+    }
+
+    /**
+     * Base path of the gateway stage, always ending with /
+     */
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public HttpService getHttpService() {
+        return httpService;
+    }
+
+    public GatewayHealth getHealth() {
+        return health;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public LatencyTracker getLatency() {
+        return latency;
+    }
+
+    /**
+     * Requests sent through this gateway that have not had a response or timed out yet
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    void requestStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    void requestFinished() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Request, byte, status and latency counters for this gateway host
+     */
+    public TrafficMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Counters shared by all gateways in this gateway's region
+     */
+    public TrafficMetrics getRegionMetrics() {
+        return regionMetrics;
+    }
+
+    void bindMetrics(TrafficMetrics metrics, TrafficMetrics regionMetrics) {
+        this.metrics = metrics;
+        this.regionMetrics = regionMetrics;
+    }
+
+    void bindRateLimits(TokenBucket gatewayBucket, TokenBucket regionBucket) {
+        this.gatewayBucket = gatewayBucket;
+        this.regionBucket = regionBucket;
+    }
+
+    /**
+     * Whether this gateway may take the next request: not ejected for poor health, within
+     * its gateway and region rate limits, and admitted by its circuit breaker (which may
+     * consume a half-open trial permit)
+     */
+    public boolean tryAcquire(CircuitBreaker.Settings breakerSettings) {
+        if (!health.isAvailable() || !tryAcquireRateLimits()) {
+            return false;
+        }
+        if (!circuitBreaker.tryAcquire(breakerSettings)) {
+            releaseRateLimits();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean tryAcquireRateLimits() {
+        TokenBucket gateway = gatewayBucket;
+        TokenBucket region = regionBucket;
+        if (gateway != null && !gateway.tryAcquire()) {
+            return false;
+        }
+        if (region != null && !region.tryAcquire()) {
+            if (gateway != null) {
+                gateway.release();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void releaseRateLimits() {
+        TokenBucket gateway = gatewayBucket;
+        TokenBucket region = regionBucket;
+        if (gateway != null) {
+            gateway.release();
+        }
+        if (region != null) {
+            region.release();
+        }
+    }
+
+    /**
+     * How long until this gateway's rate limits would admit a request, or -1 if it is
+     * unavailable for another reason (ejected, or breaker not closed)
+     */
+    long nanosUntilPermitted() {
+        if (!health.isAvailable() || circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            return -1;
+        }
+        TokenBucket gateway = gatewayBucket;
+        TokenBucket region = regionBucket;
+        return Math.max(gateway != null ? gateway.nanosUntilAvailable() : 0,
+                region != null ? region.nanosUntilAvailable() : 0);
+    }
+
+    /**
+     * Record the response to a request routed through this gateway
+     */
+    public void recordResponse(int statusCode, long latencyNanos, CircuitBreaker.Settings breakerSettings) {
+        boolean failed = GatewayHealth.isFailureStatus(statusCode);
+        health.record(statusCode);
+        circuitBreaker.onResponse(failed, latencyNanos, breakerSettings);
+        latency.record(latencyNanos);
+    }
+
+    /**
+     * Record a request that never got a response. The time waited counts as a latency
+     * sample, so a gateway that stops answering looks slow instead of keeping its old average.
+     */
+    public void recordTimeout(long waitedNanos, CircuitBreaker.Settings breakerSettings) {
+        health.recordFailure();
+        circuitBreaker.onFailure(breakerSettings);
+        latency.record(waitedNanos);
+    }
+
+    /**
+     * Prepend the gateway stage path to a request path
+     */
+    public String rewritePath(String requestPath) {
+        int start = requestPath.startsWith("/") ? 1 : 0;
+        return new StringBuilder(basePath.length() + requestPath.length() - start)
+                .append(basePath)
+                .append(requestPath, start, requestPath.length())
+                .toString();
+    }
+
+    @Override
+    public String toString() {
+        return gateway.getGatewayUrl();
+    }
+}
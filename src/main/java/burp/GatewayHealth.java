@@ -0,0 +1,160 @@
+package burp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling, response-driven health score for a single gateway.
+ *
+ * Outcomes are counted in a sliding window of time buckets. Once the window holds
+ * enough requests and its error rate crosses the threshold, the gateway is ejected
+ * from selection for a fixed period and the window starts over. All updates are
+ * lock-free; a bucket reset racing with an increment may lose that one sample.
+ */
+public final class GatewayHealth {
+    public enum State {
+        HEALTHY,
+        DEGRADED,
+        EJECTED
+    }
+
+    static final int MIN_REQUESTS = 10;
+    static final double EJECTION_ERROR_RATE = 0.5;
+    static final long EJECTION_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static final int BUCKETS = 6;
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(5); // 30s window
+
+    private final AtomicLongArray bucketEpochs = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray successes = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray failures = new AtomicLongArray(BUCKETS);
+    private volatile long ejectedUntilNanos; // 0 = not ejected
+
+    /**
+     * Whether a response status counts against the gateway (auth/WAF blocks, throttling, server errors)
+     */
+    public static boolean isFailureStatus(int statusCode) {
+        return statusCode == 403 || statusCode == 429 || statusCode >= 500;
+    }
+
+    public void record(int statusCode) {
+        if (isFailureStatus(statusCode)) {
+            recordFailure();
+        } else {
+            recordSuccess();
+        }
+    }
+
+    public void recordSuccess() {
+        successes.incrementAndGet(currentBucket(System.nanoTime()));
+    }
+
+    /**
+     * Record a failed or timed-out request and eject the gateway if the window is now unhealthy
+     */
+    public void recordFailure() {
+        long now = System.nanoTime();
+        failures.incrementAndGet(currentBucket(now));
+
+        long[] totals = windowTotals(now);
+        long total = totals[0] + totals[1];
+        if (total >= MIN_REQUESTS && totals[1] >= total * EJECTION_ERROR_RATE && ejectedUntilNanos == 0) {
+            ejectedUntilNanos = now + EJECTION_NANOS;
+            reset();
+        }
+    }
+
+    /**
+     * Whether the gateway may be selected. Only reads the clock while ejected.
+     */
+    public boolean isAvailable() {
+        long until = ejectedUntilNanos;
+        if (until == 0) {
+            return true;
+        }
+        if (System.nanoTime() - until >= 0) {
+            ejectedUntilNanos = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public State getState() {
+        if (!isAvailable()) {
+            return State.EJECTED;
+        }
+        long[] totals = windowTotals(System.nanoTime());
+        return totals[1] > 0 ? State.DEGRADED : State.HEALTHY;
+    }
+
+    /**
+     * Successful share of requests in the current window (1.0 when there is no data)
+     */
+    public double getScore() {
+        long[] totals = windowTotals(System.nanoTime());
+        long total = totals[0] + totals[1];
+        return total == 0 ? 1.0 : (double) totals[0] / total;
+    }
+
+    public long getWindowRequests() {
+        long[] totals = windowTotals(System.nanoTime());
+        return totals[0] + totals[1];
+    }
+
+    /**
+     * Seconds until an ejected gateway is eligible again (0 when not ejected)
+     */
+    public long getEjectionSecondsLeft() {
+        long until = ejectedUntilNanos;
+        if (until == 0) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toSeconds(until - System.nanoTime()));
+    }
+
+    /**
+     * Short description for the Domain Mappings gateway list
+     */
+    public String describe() {
+        State state = getState();
+        if (state == State.EJECTED) {
+            return String.format("EJECTED, back in %ds", getEjectionSecondsLeft());
+        }
+        long requests = getWindowRequests();
+        if (requests == 0) {
+            return "healthy, no recent traffic";
+        }
+        return String.format("%s, %.0f%% ok of %d", state.name().toLowerCase(), getScore() * 100, requests);
+    }
+
+    private int currentBucket(long now) {
+        long epoch = now / BUCKET_NANOS;
+        int index = (int) Math.floorMod(epoch, (long) BUCKETS);
+        long seen = bucketEpochs.get(index);
+        if (seen != epoch && bucketEpochs.compareAndSet(index, seen, epoch)) {
+            successes.set(index, 0);
+            failures.set(index, 0);
+        }
+        return index;
+    }
+
+    private long[] windowTotals(long now) {
+        long epoch = now / BUCKET_NANOS;
+        long ok = 0;
+        long failed = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epoch - bucketEpochs.get(i) < BUCKETS) {
+                ok += successes.get(i);
+                failed += failures.get(i);
+            }
+        }
+        return new long[]{ok, failed};
+    }
+
+    private void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            successes.set(i, 0);
+            failures.set(i, 0);
+        }
+    }
+}
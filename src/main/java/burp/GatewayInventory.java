@@ -0,0 +1,249 @@
+package burp;
+
+import burp.api.montoya.persistence.PersistedObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local copy of the rotator gateways in every AWS region, persisted in the Burp project so
+ * the AWS Gateways tab can show them without scanning 16 regions first.
+ *
+ * Create, update and delete apply their results directly, so the copy only drifts when
+ * gateways are changed outside this extension. Each region remembers when it was last
+ * scanned; regions older than the TTL are rescanned in the background and replaced
+ * wholesale with what AWS reports.
+ */
+public final class GatewayInventory {
+    public static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final String PERSISTENCE_KEY = "gatewayInventory";
+
+    private final Map<String, Map<String, AwsIpRotatorManager.AwsIpRotatorGateway>> byRegion = new TreeMap<>();
+    private final Map<String, Long> scannedAtMillis = new HashMap<>();
+    private final long ttlMs;
+    private boolean dirty;
+
+    public GatewayInventory(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Every known gateway, by region and then in the order AWS listed them
+     */
+    public synchronized List<AwsIpRotatorManager.AwsIpRotatorGateway> all() {
+        List<AwsIpRotatorManager.AwsIpRotatorGateway> gateways = new ArrayList<>();
+        for (Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> region : byRegion.values()) {
+            gateways.addAll(region.values());
+        }
+        return gateways;
+    }
+
+    public synchronized List<AwsIpRotatorManager.AwsIpRotatorGateway> inRegion(String region) {
+        Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> gateways = byRegion.get(region);
+        return gateways != null ? new ArrayList<>(gateways.values()) : new ArrayList<>();
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> region : byRegion.values()) {
+            size += region.size();
+        }
+        return size;
+    }
+
+    /**
+     * Record a gateway this extension just created
+     */
+    public synchronized void put(AwsIpRotatorManager.AwsIpRotatorGateway gateway) {
+        byRegion.computeIfAbsent(gateway.region, region -> new LinkedHashMap<>()).put(gateway.apiId, gateway);
+        dirty = true;
+    }
+
+    /**
+     * Forget a gateway this extension just deleted
+     */
+    public synchronized void remove(String region, String apiId) {
+        Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> gateways = byRegion.get(region);
+        if (gateways != null && gateways.remove(apiId) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Record a new target URL for a gateway this extension just updated
+     */
+    public synchronized void updateTarget(String apiId, String targetUrl) {
+        for (Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> gateways : byRegion.values()) {
+            AwsIpRotatorManager.AwsIpRotatorGateway gateway = gateways.get(apiId);
+            if (gateway != null) {
+                gateways.put(apiId, new AwsIpRotatorManager.AwsIpRotatorGateway(gateway.apiId, gateway.name,
+                        gateway.createdDate, targetUrl, gateway.proxyUrl, gateway.region));
+                dirty = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replace a region with the result of a full scan. Returns whether anything changed.
+     */
+    public synchronized boolean replaceRegion(String region, Collection<AwsIpRotatorManager.AwsIpRotatorGateway> gateways,
+                                              long nowMillis) {
+        Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> scanned = new LinkedHashMap<>();
+        for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : gateways) {
+            scanned.put(gateway.apiId, gateway);
+        }
+        Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> previous = byRegion.get(region);
+        boolean changed = !sameGateways(previous, scanned);
+        if (scanned.isEmpty()) {
+            byRegion.remove(region);
+        } else {
+            byRegion.put(region, scanned);
+        }
+        scannedAtMillis.put(region, nowMillis);
+        dirty = true;
+        return changed;
+    }
+
+    private static boolean sameGateways(Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> previous,
+                                        Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> scanned) {
+        if (previous == null) {
+            return scanned.isEmpty();
+        }
+        if (previous.size() != scanned.size()) {
+            return false;
+        }
+        for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : scanned.values()) {
+            AwsIpRotatorManager.AwsIpRotatorGateway known = previous.get(gateway.apiId);
+            if (known == null || !known.targetUrl.equals(gateway.targetUrl) || !known.proxyUrl.equals(gateway.proxyUrl)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regions that were never scanned or were scanned longer than the TTL ago
+     */
+    public synchronized List<String> staleRegions(String[] regions, long nowMillis) {
+        List<String> stale = new ArrayList<>();
+        for (String region : regions) {
+            Long scannedAt = scannedAtMillis.get(region);
+            if (scannedAt == null || nowMillis - scannedAt >= ttlMs) {
+                stale.add(region);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Keep a region's cached gateways after a failed scan and retry it after a full TTL
+     */
+    public synchronized void deferRegion(String region, long nowMillis) {
+        scannedAtMillis.put(region, nowMillis);
+    }
+
+    /**
+     * Mark every region stale (e.g. credentials for another account were connected)
+     */
+    public synchronized void invalidate() {
+        scannedAtMillis.clear();
+        dirty = true;
+    }
+
+    /**
+     * Milliseconds since the oldest region was scanned, or -1 if none has been
+     */
+    public synchronized long oldestScanAgeMillis(long nowMillis) {
+        long oldest = Long.MAX_VALUE;
+        for (long scannedAt : scannedAtMillis.values()) {
+            oldest = Math.min(oldest, scannedAt);
+        }
+        return oldest == Long.MAX_VALUE ? -1 : nowMillis - oldest;
+    }
+
+    /**
+     * Write the inventory into the extension's project data if it changed since the last save
+     */
+    public synchronized void saveIfDirty(PersistedObject extensionData) {
+        if (!dirty) {
+            return;
+        }
+        PersistedObject inventoryObj = PersistedObject.persistedObject();
+        for (String region : allRegions()) {
+            PersistedObject regionObj = PersistedObject.persistedObject();
+            Long scannedAt = scannedAtMillis.get(region);
+            if (scannedAt != null) {
+                regionObj.setLong("scannedAt", scannedAt);
+            }
+            int index = 0;
+            for (AwsIpRotatorManager.AwsIpRotatorGateway gateway : byRegion.getOrDefault(region, Map.of()).values()) {
+                PersistedObject gatewayObj = PersistedObject.persistedObject();
+                gatewayObj.setString("apiId", gateway.apiId);
+                if (gateway.name != null) {
+                    gatewayObj.setString("name", gateway.name);
+                }
+                gatewayObj.setString("targetUrl", gateway.targetUrl);
+                gatewayObj.setString("proxyUrl", gateway.proxyUrl);
+                if (gateway.createdDate != null) {
+                    gatewayObj.setLong("createdDate", gateway.createdDate.toEpochMilli());
+                }
+                regionObj.setChildObject("gateway_" + index++, gatewayObj);
+            }
+            inventoryObj.setChildObject(region, regionObj);
+        }
+        extensionData.setChildObject(PERSISTENCE_KEY, inventoryObj);
+        dirty = false;
+    }
+
+    private Set<String> allRegions() {
+        Set<String> regions = new TreeSet<>(byRegion.keySet());
+        regions.addAll(scannedAtMillis.keySet());
+        return regions;
+    }
+
+    /**
+     * Read the inventory saved in the extension's project data (empty if there is none)
+     */
+    public static GatewayInventory load(PersistedObject extensionData, long ttlMs) {
+        GatewayInventory inventory = new GatewayInventory(ttlMs);
+        PersistedObject inventoryObj = extensionData.getChildObject(PERSISTENCE_KEY);
+        if (inventoryObj == null) {
+            return inventory;
+        }
+        for (String region : inventoryObj.childObjectKeys()) {
+            PersistedObject regionObj = inventoryObj.getChildObject(region);
+            Long scannedAt = regionObj.getLong("scannedAt");
+            if (scannedAt != null) {
+                inventory.scannedAtMillis.put(region, scannedAt);
+            }
+
+            Map<String, AwsIpRotatorManager.AwsIpRotatorGateway> gateways = new LinkedHashMap<>();
+            for (int i = 0; regionObj.getChildObject("gateway_" + i) != null; i++) {
+                PersistedObject gatewayObj = regionObj.getChildObject("gateway_" + i);
+                String apiId = gatewayObj.getString("apiId");
+                String targetUrl = gatewayObj.getString("targetUrl");
+                String proxyUrl = gatewayObj.getString("proxyUrl");
+                if (apiId == null || targetUrl == null || proxyUrl == null) {
+                    continue;
+                }
+                Long createdDate = gatewayObj.getLong("createdDate");
+                gateways.put(apiId, new AwsIpRotatorManager.AwsIpRotatorGateway(apiId, gatewayObj.getString("name"),
+                        createdDate != null ? Instant.ofEpochMilli(createdDate) : null, targetUrl, proxyUrl, region));
+            }
+            if (!gateways.isEmpty()) {
+                inventory.byRegion.put(region, gateways);
+            }
+        }
+        return inventory;
+    }
+}
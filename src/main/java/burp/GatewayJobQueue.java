@@ -0,0 +1,528 @@
+package burp;
+
+import burp.api.montoya.persistence.PersistedObject;
+import software.amazon.awssdk.services.apigateway.model.NotFoundException;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Gateway creations, updates and deletions as jobs recorded in the Burp project, so work
+ * cut short by closing Burp, unloading the extension or a crash resumes next time.
+ *
+ * Each job is written to the extension's project data before every step it starts
+ * (import, deploy, update or delete) and removed once it finishes. Resuming repeats the
+ * interrupted step, which is safe for all of them: an interrupted import first looks for
+ * the API it may already have created (tagged with the job ID), a deployment can be
+ * repeated, and deleting a gateway that is already gone counts as done.
+ *
+ * Jobs only run while an AWS manager is connected. At most JOBS_PER_REGION non-interactive
+ * jobs run per region; the rest wait here, where they can still be cancelled, while the
+ * control-plane scheduler paces the ones that run.
+ */
+public final class GatewayJobQueue {
+    private static final String KEY_PREFIX = "gatewayJob_";
+    private static final int JOBS_PER_REGION = 2;
+    private static final long THROUGHPUT_WINDOW_MS = 60_000;
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    /**
+     * The step a job is at; persisted before the step's AWS call starts
+     */
+    public enum Step { QUEUED, IMPORTING, DEPLOYING, UPDATING, DELETING }
+
+    /**
+     * Receives jobs that finish without a caller waiting on them: jobs resumed from the
+     * project, retried after failing, or released by disconnect(). Called on SDK
+     * completion threads.
+     */
+    public interface Listener {
+        void jobFinished(Job job, AwsIpRotatorManager.AwsIpRotatorGateway gateway);
+    }
+
+    private final PersistedObject store;
+    private final GatewayInventory inventory;
+    private final Listener listener;
+    private final List<Job> jobs = new ArrayList<>(); // unfinished jobs by priority, then sequence
+    private final Map<String, CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway>> results = new HashMap<>();
+    private final Map<String, Integer> runningByRegion = new HashMap<>();
+    private final ArrayDeque<Long> finishedAtMillis = new ArrayDeque<>();
+    private AwsIpRotatorManager manager;
+    private long sequence;
+
+    private GatewayJobQueue(PersistedObject store, GatewayInventory inventory, Listener listener) {
+        this.store = store;
+        this.inventory = inventory;
+        this.listener = listener;
+    }
+
+    /**
+     * Read the jobs left unfinished in the extension's project data. They wait until
+     * connect() is called.
+     */
+    public static GatewayJobQueue load(PersistedObject store, GatewayInventory inventory, Listener listener) {
+        GatewayJobQueue queue = new GatewayJobQueue(store, inventory, listener);
+        for (String key : store.childObjectKeys()) {
+            if (key.startsWith(KEY_PREFIX)) {
+                Job job = Job.read(key.substring(KEY_PREFIX.length()), store.getChildObject(key));
+                if (job != null) {
+                    job.sequence = queue.sequence++;
+                    queue.enqueue(job);
+                }
+            }
+        }
+        return queue;
+    }
+
+    public CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> create(String targetUrl, String region,
+                                                                           String stageName,
+                                                                           ControlPlaneScheduler.Priority priority,
+                                                                           boolean addMapping) {
+        Job job = new Job(Type.CREATE, region, priority);
+        job.targetUrl = targetUrl;
+        job.stageName = stageName;
+        job.addMapping = addMapping;
+        return submit(job);
+    }
+
+    /**
+     * Point a gateway at a new target. Completes with null.
+     */
+    public CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> update(String apiId, String region,
+                                                                           String targetUrl) {
+        Job job = new Job(Type.UPDATE, region, ControlPlaneScheduler.Priority.INTERACTIVE);
+        job.apiId = apiId;
+        job.targetUrl = targetUrl;
+        return submit(job);
+    }
+
+    /**
+     * Delete a gateway. Completes with null.
+     */
+    public CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> delete(String apiId, String region,
+                                                                           ControlPlaneScheduler.Priority priority) {
+        Job job = new Job(Type.DELETE, region, priority);
+        job.apiId = apiId;
+        return submit(job);
+    }
+
+    private CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> submit(Job job) {
+        CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> result = new CompletableFuture<>();
+        synchronized (this) {
+            job.id = Long.toString(System.currentTimeMillis(), 36) + "-" + Long.toString(sequence, 36);
+            job.sequence = sequence++;
+            enqueue(job);
+            results.put(job.id, result);
+            persist(job);
+        }
+        pump();
+        return result;
+    }
+
+    private void enqueue(Job job) {
+        int index = jobs.size();
+        while (index > 0 && job.before(jobs.get(index - 1))) {
+            index--;
+        }
+        jobs.add(index, job);
+    }
+
+    /**
+     * Start running jobs with the given manager (after connecting to AWS)
+     */
+    public void connect(AwsIpRotatorManager manager) {
+        synchronized (this) {
+            this.manager = manager;
+        }
+        pump();
+    }
+
+    /**
+     * Stop starting jobs (before the manager is closed). Running jobs that fail because
+     * their manager closed stay at their step and resume on the next connect(). Callers
+     * waiting on any unfinished job are released with an error; if the job finishes
+     * later, the listener hears about it instead.
+     */
+    public void disconnect() {
+        List<CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway>> waiting;
+        synchronized (this) {
+            manager = null;
+            waiting = new ArrayList<>(results.values());
+            results.clear();
+        }
+        for (CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> result : waiting) {
+            result.completeExceptionally(new IllegalStateException(
+                    "Connection to AWS closed; the job resumes on the next connection"));
+        }
+    }
+
+    /**
+     * Drop the jobs behind the given futures (as returned by create, update or delete) that
+     * have not started yet. Their futures fail with a CancellationException. Returns how
+     * many were dropped.
+     */
+    public int cancel(Collection<? extends CompletableFuture<?>> futures) {
+        List<CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway>> cancelled = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Job> iterator = jobs.iterator();
+            while (iterator.hasNext()) {
+                Job job = iterator.next();
+                if (!job.running && job.step == Step.QUEUED && futures.contains(results.get(job.id))) {
+                    iterator.remove();
+                    store.deleteChildObject(KEY_PREFIX + job.id);
+                    CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> result = results.remove(job.id);
+                    if (result != null) {
+                        cancelled.add(result);
+                    }
+                }
+            }
+        }
+        for (CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> result : cancelled) {
+            result.completeExceptionally(new CancellationException("Cancelled"));
+        }
+        return cancelled.size();
+    }
+
+    /**
+     * Run failed jobs again from the step they failed at
+     */
+    public void retryFailed() {
+        synchronized (this) {
+            for (Job job : jobs) {
+                if (job.failed) {
+                    job.failed = false;
+                    job.lastError = null;
+                    persist(job);
+                }
+            }
+        }
+        pump();
+    }
+
+    /**
+     * Forget failed jobs. A creation that failed after its import leaves an undeployed API
+     * behind; its ID is shown in the Jobs view.
+     */
+    public synchronized int discardFailed() {
+        int discarded = 0;
+        Iterator<Job> iterator = jobs.iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.failed) {
+                iterator.remove();
+                store.deleteChildObject(KEY_PREFIX + job.id);
+                discarded++;
+            }
+        }
+        return discarded;
+    }
+
+    /**
+     * Start every waiting job its region has room for, in priority order
+     */
+    private void pump() {
+        List<Job> starting = new ArrayList<>();
+        AwsIpRotatorManager current;
+        synchronized (this) {
+            current = manager;
+            if (current == null) {
+                return;
+            }
+            for (Job job : jobs) {
+                if (job.running || job.failed) {
+                    continue;
+                }
+                int running = runningByRegion.getOrDefault(job.region, 0);
+                if (job.priority != ControlPlaneScheduler.Priority.INTERACTIVE && running >= JOBS_PER_REGION) {
+                    continue;
+                }
+                job.running = true;
+                job.attempts++;
+                runningByRegion.put(job.region, running + 1);
+                starting.add(job);
+            }
+        }
+        for (Job job : starting) {
+            CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> run;
+            try {
+                run = run(job, current);
+            } catch (Exception e) {
+                run = CompletableFuture.failedFuture(e);
+            }
+            run.whenComplete((gateway, error) -> finish(job, current, gateway, error));
+        }
+    }
+
+    private CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> run(Job job, AwsIpRotatorManager manager) {
+        switch (job.type) {
+            case CREATE:
+                if (job.step == Step.DEPLOYING) {
+                    return deploy(job, manager, job.toGateway());
+                }
+                if (job.step == Step.IMPORTING) {
+                    // Interrupted mid-import: adopt the API if AWS created it, else import again
+                    return manager.findJobGatewayAsync(job.targetUrl, job.region, job.stageName, job.id, job.priority)
+                            .thenCompose(found -> found != null ? deploy(job, manager, found) : importAndDeploy(job, manager));
+                }
+                return importAndDeploy(job, manager);
+            case UPDATE:
+                advance(job, Step.UPDATING);
+                return manager.updateGatewayAsync(job.apiId, job.region, job.targetUrl, job.priority)
+                        .thenApply(ignored -> {
+                            inventory.updateTarget(job.apiId, job.targetUrl);
+                            return null;
+                        });
+            default:
+                advance(job, Step.DELETING);
+                return manager.deleteGatewayInRegionAsync(job.apiId, job.region, job.priority)
+                        .handle((ignored, error) -> {
+                            if (error != null && !(unwrap(error) instanceof NotFoundException)) {
+                                throw error instanceof CompletionException
+                                        ? (CompletionException) error : new CompletionException(error);
+                            }
+                            inventory.remove(job.region, job.apiId);
+                            return null;
+                        });
+        }
+    }
+
+    private CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> importAndDeploy(Job job,
+                                                                                     AwsIpRotatorManager manager) {
+        advance(job, Step.IMPORTING);
+        return manager.importGatewayAsync(job.targetUrl, job.region, job.stageName, job.id, job.priority)
+                .thenCompose(imported -> deploy(job, manager, imported));
+    }
+
+    private CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> deploy(Job job, AwsIpRotatorManager manager,
+                                                                            AwsIpRotatorManager.AwsIpRotatorGateway gateway) {
+        synchronized (this) {
+            job.apiId = gateway.apiId;
+            job.name = gateway.name;
+            job.createdDate = gateway.createdDate;
+            job.step = Step.DEPLOYING;
+            persist(job);
+        }
+        return manager.deployGatewayAsync(gateway.apiId, job.region, job.stageName, job.priority)
+                .thenApply(ignored -> {
+                    inventory.put(gateway);
+                    return gateway;
+                });
+    }
+
+    private synchronized void advance(Job job, Step step) {
+        job.step = step;
+        persist(job);
+    }
+
+    private void finish(Job job, AwsIpRotatorManager ranWith, AwsIpRotatorManager.AwsIpRotatorGateway gateway,
+                        Throwable error) {
+        CompletableFuture<AwsIpRotatorManager.AwsIpRotatorGateway> result;
+        boolean notify = false;
+        synchronized (this) {
+            job.running = false;
+            runningByRegion.merge(job.region, -1, Integer::sum);
+            if (error != null && manager != ranWith) {
+                // Its manager was closed underneath it; the job resumes on the next connect()
+                return;
+            }
+            if (error != null) {
+                job.failed = true;
+                job.lastError = AwsIpRotatorManager.failureMessage(error);
+                persist(job);
+                result = results.remove(job.id);
+            } else {
+                jobs.remove(job);
+                store.deleteChildObject(KEY_PREFIX + job.id);
+                long now = System.currentTimeMillis();
+                finishedAtMillis.addLast(now);
+                trimFinished(now);
+                result = results.remove(job.id);
+                notify = result == null && listener != null;
+            }
+        }
+        if (result != null) {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(gateway);
+            }
+        }
+        if (notify) {
+            listener.jobFinished(job, gateway);
+        }
+        pump();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private void trimFinished(long now) {
+        while (!finishedAtMillis.isEmpty() && now - finishedAtMillis.peekFirst() > THROUGHPUT_WINDOW_MS) {
+            finishedAtMillis.removeFirst();
+        }
+    }
+
+    private void persist(Job job) {
+        store.setChildObject(KEY_PREFIX + job.id, job.write());
+    }
+
+    /**
+     * Copies of every unfinished job, in the order they run
+     */
+    public synchronized List<Job> snapshot() {
+        List<Job> copies = new ArrayList<>();
+        for (Job job : jobs) {
+            copies.add(job.copy());
+        }
+        return copies;
+    }
+
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Queue depth and throughput for the UI
+     */
+    public synchronized String describe() {
+        int running = 0;
+        int failed = 0;
+        for (Job job : jobs) {
+            if (job.running) {
+                running++;
+            } else if (job.failed) {
+                failed++;
+            }
+        }
+        trimFinished(System.currentTimeMillis());
+        return String.format("%d waiting, %d running, %d failed; %d finished in the last minute%s",
+                jobs.size() - running - failed, running, failed, finishedAtMillis.size(),
+                manager == null && !jobs.isEmpty() ? " (paused until connected to AWS)" : "");
+    }
+
+    /**
+     * One gateway operation and how far it got
+     */
+    public static final class Job {
+        public final Type type;
+        public final String region;
+        public final ControlPlaneScheduler.Priority priority;
+        public String id;
+        public String targetUrl;  // CREATE and UPDATE
+        public String stageName;  // CREATE
+        public boolean addMapping; // CREATE: add the gateway to its domain's mappings when done
+        public String apiId;      // known from the start for UPDATE and DELETE, after import for CREATE
+        public String name;
+        public Instant createdDate;
+        public Step step = Step.QUEUED;
+        public int attempts;
+        public boolean running;
+        public boolean failed;
+        public String lastError;
+        long sequence;
+
+        Job(Type type, String region, ControlPlaneScheduler.Priority priority) {
+            this.type = type;
+            this.region = region;
+            this.priority = priority;
+        }
+
+        boolean before(Job other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority < 0 : sequence < other.sequence;
+        }
+
+        AwsIpRotatorManager.AwsIpRotatorGateway toGateway() {
+            return new AwsIpRotatorManager.AwsIpRotatorGateway(apiId, name, createdDate, targetUrl,
+                    String.format("https://%s.execute-api.%s.amazonaws.com/%s/", apiId, region, stageName), region);
+        }
+
+        Job copy() {
+            Job copy = new Job(type, region, priority);
+            copy.id = id;
+            copy.targetUrl = targetUrl;
+            copy.stageName = stageName;
+            copy.addMapping = addMapping;
+            copy.apiId = apiId;
+            copy.name = name;
+            copy.createdDate = createdDate;
+            copy.step = step;
+            copy.attempts = attempts;
+            copy.running = running;
+            copy.failed = failed;
+            copy.lastError = lastError;
+            copy.sequence = sequence;
+            return copy;
+        }
+
+        PersistedObject write() {
+            PersistedObject jobObj = PersistedObject.persistedObject();
+            jobObj.setString("type", type.name());
+            jobObj.setString("region", region);
+            jobObj.setString("priority", priority.name());
+            jobObj.setString("step", step.name());
+            jobObj.setInteger("attempts", attempts);
+            jobObj.setBoolean("failed", failed);
+            jobObj.setBoolean("addMapping", addMapping);
+            if (targetUrl != null) {
+                jobObj.setString("targetUrl", targetUrl);
+            }
+            if (stageName != null) {
+                jobObj.setString("stageName", stageName);
+            }
+            if (apiId != null) {
+                jobObj.setString("apiId", apiId);
+            }
+            if (name != null) {
+                jobObj.setString("name", name);
+            }
+            if (createdDate != null) {
+                jobObj.setLong("createdDate", createdDate.toEpochMilli());
+            }
+            if (lastError != null) {
+                jobObj.setString("lastError", lastError);
+            }
+            return jobObj;
+        }
+
+        /**
+         * A job saved by write(), or null if the record is unusable
+         */
+        static Job read(String id, PersistedObject jobObj) {
+            try {
+                Job job = new Job(Type.valueOf(jobObj.getString("type")), jobObj.getString("region"),
+                        ControlPlaneScheduler.Priority.valueOf(jobObj.getString("priority")));
+                job.id = id;
+                job.step = Step.valueOf(jobObj.getString("step"));
+                job.targetUrl = jobObj.getString("targetUrl");
+                job.stageName = jobObj.getString("stageName");
+                job.apiId = jobObj.getString("apiId");
+                job.name = jobObj.getString("name");
+                Long createdDate = jobObj.getLong("createdDate");
+                job.createdDate = createdDate != null ? Instant.ofEpochMilli(createdDate) : null;
+                Integer attempts = jobObj.getInteger("attempts");
+                job.attempts = attempts != null ? attempts : 0;
+                job.failed = Boolean.TRUE.equals(jobObj.getBoolean("failed"));
+                job.addMapping = Boolean.TRUE.equals(jobObj.getBoolean("addMapping"));
+                job.lastError = jobObj.getString("lastError");
+                return job.region != null ? job : null;
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
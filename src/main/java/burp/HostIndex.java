@@ -0,0 +1,120 @@
+package burp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable case-insensitive host lookup table.
+ *
+ * Exact hosts resolve through a lower-cased hash index. Wildcard entries such as
+ * "*.example.com" are stored in a suffix trie keyed by reversed labels
+ * (com -> example), so a lookup walks at most one node per label of the request
+ * host. A wildcard matches subdomains at any depth but not the bare parent domain,
+ * and the most specific wildcard wins.
+ */
+public final class HostIndex<T> {
+    private static final String WILDCARD_PREFIX = "*.";
+    private static final HostIndex<?> EMPTY = new HostIndex<>(Collections.emptyMap(), null, 0);
+
+    private final Map<String, T> exact;
+    private final Node<T> wildcards;
+    private final int size;
+
+    private HostIndex(Map<String, T> exact, Node<T> wildcards, int size) {
+        this.exact = exact;
+        this.wildcards = wildcards;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> HostIndex<T> empty() {
+        return (HostIndex<T>) EMPTY;
+    }
+
+    /**
+     * Build an index from host patterns ("api.example.com" or "*.example.com") to values
+     */
+    public static <T> HostIndex<T> build(Map<String, T> entries) {
+        if (entries.isEmpty()) {
+            return empty();
+        }
+
+        Map<String, T> exact = new HashMap<>();
+        Node<T> wildcards = null;
+        int size = 0;
+
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            String pattern = entry.getKey().trim().toLowerCase(Locale.ROOT);
+
+            if (pattern.startsWith(WILDCARD_PREFIX)) {
+                if (wildcards == null) {
+                    wildcards = new Node<>();
+                }
+                Node<T> node = wildcards;
+                String[] labels = pattern.substring(WILDCARD_PREFIX.length()).split("\\.");
+                for (int i = labels.length - 1; i >= 0; i--) {
+                    node = node.children.computeIfAbsent(labels[i], k -> new Node<>());
+                }
+                if (node.value == null) {
+                    node.value = entry.getValue();
+                    size++;
+                }
+            } else if (exact.putIfAbsent(pattern, entry.getValue()) == null) {
+                size++;
+            }
+        }
+
+        return new HostIndex<>(exact, wildcards, size);
+    }
+
+    /**
+     * Find the value for a request host, preferring an exact match over wildcards
+     */
+    public T lookup(String host) {
+        if (host == null || size == 0) {
+            return null;
+        }
+
+        // toLowerCase returns the same instance when the host is already lower-case
+        String key = host.toLowerCase(Locale.ROOT);
+        T value = exact.get(key);
+        if (value != null || wildcards == null) {
+            return value;
+        }
+
+        // Walk labels right to left; only a strict subdomain can match a wildcard
+        T match = null;
+        Node<T> node = wildcards;
+        int end = key.length();
+        while (end > 0) {
+            int dot = key.lastIndexOf('.', end - 1);
+            if (dot < 0) {
+                break;
+            }
+            node = node.children.get(key.substring(dot + 1, end));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+            end = dot;
+        }
+        return match;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<T> {
+        final Map<String, Node<T>> children = new HashMap<>();
+        T value;
+    }
+}
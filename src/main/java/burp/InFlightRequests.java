@@ -0,0 +1,81 @@
+package burp;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Correlates responses with the gateway that served the request, keyed by Burp's message ID,
+ * and keeps each gateway's outstanding-request count in step.
+ *
+ * Entries whose response never arrives (connection failures, timeouts) are expired by a
+ * periodic sweep, released from the outstanding count and counted as gateway failures.
+ */
+public final class InFlightRequests {
+    static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<Integer, InFlightRequest> requests = new ConcurrentHashMap<>();
+
+    public void started(int messageId, DomainRoute route, GatewayEndpoint endpoint, String originalPath) {
+        endpoint.requestStarted();
+        InFlightRequest previous = requests.put(messageId,
+                new InFlightRequest(route, endpoint, originalPath, System.nanoTime()));
+        if (previous != null) {
+            // Same message re-sent before its first response; don't leak the earlier count
+            previous.endpoint.requestFinished();
+        }
+    }
+
+    /**
+     * Remove and return the request a response belongs to, or null if it was not rewritten
+     */
+    public InFlightRequest completed(int messageId) {
+        InFlightRequest request = requests.remove(messageId);
+        if (request != null) {
+            request.endpoint.requestFinished();
+        }
+        return request;
+    }
+
+    /**
+     * Expire requests that have waited longer than the timeout, recording them as failures
+     */
+    public int expire(CircuitBreaker.Settings breakerSettings) {
+        long now = System.nanoTime();
+        int expired = 0;
+        Iterator<Map.Entry<Integer, InFlightRequest>> it = requests.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, InFlightRequest> entry = it.next();
+            InFlightRequest request = entry.getValue();
+            if (now - request.startNanos >= TIMEOUT_NANOS && requests.remove(entry.getKey(), request)) {
+                request.endpoint.requestFinished();
+                request.endpoint.recordTimeout(now - request.startNanos, breakerSettings);
+                MetricsRegistry.recordNoResponse(request.route, request.endpoint);
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * A rewritten request waiting for its response, with what is needed to retry it elsewhere
+     */
+    public static final class InFlightRequest {
+        public final DomainRoute route;
+        public final GatewayEndpoint endpoint;
+        public final String originalPath;
+        public final long startNanos;
+
+        InFlightRequest(DomainRoute route, GatewayEndpoint endpoint, String originalPath, long startNanos) {
+            this.route = route;
+            this.endpoint = endpoint;
+            this.originalPath = originalPath;
+            this.startNanos = startNanos;
+        }
+    }
+}
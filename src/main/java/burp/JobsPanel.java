@@ -0,0 +1,105 @@
+package burp;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * "Jobs" tab: every unfinished gateway job in the order it runs, the queue depth and
+ * throughput, and the control-plane scheduler's counters. Failed jobs stay listed until
+ * they are retried or discarded.
+ */
+public class JobsPanel extends JPanel {
+    private static final int REFRESH_MS = 1000;
+
+    private final GatewayJobQueue queue;
+    private final Supplier<String> controlPlaneStatus;
+    private final DefaultTableModel tableModel;
+    private final JLabel queueLabel = new JLabel(" ");
+    private final JLabel controlPlaneLabel = new JLabel(" ");
+    private final Timer refreshTimer;
+
+    public JobsPanel(GatewayJobQueue queue, Supplier<String> controlPlaneStatus) {
+        super(new BorderLayout(10, 10));
+        this.queue = queue;
+        this.controlPlaneStatus = controlPlaneStatus;
+
+        JPanel status = new JPanel(new GridLayout(2, 1));
+        status.add(queueLabel);
+        status.add(controlPlaneLabel);
+        add(status, BorderLayout.NORTH);
+
+        String[] columns = {"Job", "Type", "Region", "Target / API ID", "Step", "Attempts", "Status"};
+        tableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(3).setPreferredWidth(300);
+        table.getColumnModel().getColumn(6).setPreferredWidth(300);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton retryButton = new JButton("Retry Failed");
+        retryButton.addActionListener(e -> {
+            queue.retryFailed();
+            refresh();
+        });
+        buttons.add(retryButton);
+        JButton discardButton = new JButton("Discard Failed");
+        discardButton.setToolTipText("Forget failed jobs; a creation that failed after its import leaves that API in AWS");
+        discardButton.addActionListener(e -> {
+            queue.discardFailed();
+            refresh();
+        });
+        buttons.add(discardButton);
+        add(buttons, BorderLayout.SOUTH);
+
+        refreshTimer = new Timer(REFRESH_MS, e -> {
+            if (isShowing()) {
+                refresh();
+            }
+        });
+    }
+
+    public void start() {
+        refreshTimer.start();
+    }
+
+    public void stop() {
+        refreshTimer.stop();
+    }
+
+    private void refresh() {
+        queueLabel.setText("Jobs: " + queue.describe());
+        String controlPlane = controlPlaneStatus.get();
+        controlPlaneLabel.setText(controlPlane != null ? "AWS calls: " + controlPlane : "AWS calls: not connected");
+
+        List<GatewayJobQueue.Job> jobs = queue.snapshot();
+        tableModel.setRowCount(jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            GatewayJobQueue.Job job = jobs.get(i);
+            String target = job.type == GatewayJobQueue.Type.DELETE ? job.apiId
+                : job.apiId != null ? job.targetUrl + " (" + job.apiId + ")" : job.targetUrl;
+            String state = job.failed ? "Failed: " + job.lastError : job.running ? "Running" : "Waiting";
+            setCell(i, 0, job.id);
+            setCell(i, 1, job.type.name());
+            setCell(i, 2, job.region);
+            setCell(i, 3, target != null ? target : "");
+            setCell(i, 4, job.step.name());
+            setCell(i, 5, job.attempts);
+            setCell(i, 6, state);
+        }
+    }
+
+    private void setCell(int row, int column, Object value) {
+        // Only fire change events for cells that actually changed, so the selection stays put
+        if (!value.equals(tableModel.getValueAt(row, column))) {
+            tableModel.setValueAt(value, row, column);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package burp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear latency histogram in the style of HdrHistogram.
+ *
+ * Values are recorded in microseconds. Below 16 us each value has its own bucket; above
+ * that every power of two is split into 16 linear sub-buckets, so any recorded value is
+ * reported within 1/16 (6.25%) of its true value. 544 buckets cover 1 us up to
+ * MAX_VALUE, 2^37 - 1 us (about 38 hours); larger values land in the last bucket.
+ * Recording is one array increment with no allocation; percentiles are computed
+ * by walking the counts, which is only done from the UI.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = bucketCount(MAX_EXPONENT, SUB_BUCKET_BITS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMicros(long micros) {
+        counts.incrementAndGet(indexOf(Math.max(0, Math.min(micros, MAX_VALUE))));
+    }
+
+    static int indexOf(long value) {
+        return indexOf(value, SUB_BUCKET_BITS);
+    }
+
+    static long highestValueAt(int index) {
+        return highestValueAt(index, SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Bucket count needed for values up to 2^(maxExponent + 1) - 1 at the given precision
+     */
+    static int bucketCount(int maxExponent, int subBucketBits) {
+        return (1 << subBucketBits) * (maxExponent - subBucketBits + 2);
+    }
+
+    /**
+     * Log-linear bucket for a value, with 2^subBucketBits linear buckets per power of two
+     */
+    static int indexOf(long value, int subBucketBits) {
+        int subBuckets = 1 << subBucketBits;
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - subBucketBits;
+        int subBucket = (int) (value >>> shift) - subBuckets;
+        return subBuckets + shift * subBuckets + subBucket;
+    }
+
+    /**
+     * Largest value that falls into the given bucket
+     */
+    static long highestValueAt(int index, int subBucketBits) {
+        int subBuckets = 1 << subBucketBits;
+        if (index < subBuckets) {
+            return index;
+        }
+        int shift = (index - subBuckets) / subBuckets;
+        int subBucket = (index - subBuckets) % subBuckets;
+        return ((long) (subBuckets + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Value at the given percentile (0-100) of bucket counts, or 0 if the counts are empty
+     */
+    static long percentile(long[] counts, long total, double percentile, int subBucketBits) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValueAt(i, subBucketBits);
+            }
+        }
+        return highestValueAt(counts.length - 1, subBucketBits);
+    }
+
+    /**
+     * Point-in-time copy of the counts, for computing several percentiles consistently
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total);
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+
+        private Snapshot(long[] counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        public long getCount() {
+            return total;
+        }
+
+        /**
+         * Latency at the given percentile (0-100) in milliseconds, or 0 if nothing was recorded
+         */
+        public double percentileMillis(double percentile) {
+            return LatencyHistogram.percentile(counts, total, percentile, SUB_BUCKET_BITS) / 1000.0;
+        }
+    }
+}
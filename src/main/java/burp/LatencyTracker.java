@@ -0,0 +1,47 @@
+package burp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving average of a gateway's response latency.
+ *
+ * The average is stored as double bits in an AtomicLong and updated with a CAS loop,
+ * so readers on the request path never block.
+ */
+public final class LatencyTracker {
+    private static final double ALPHA = 0.2; // weight of the newest sample
+    private static final long UNMEASURED = Double.doubleToRawLongBits(-1.0);
+
+    private final AtomicLong ewmaBits = new AtomicLong(UNMEASURED);
+
+    public void record(long latencyNanos) {
+        double sample = latencyNanos / 1_000_000.0;
+        while (true) {
+            long bits = ewmaBits.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = current < 0 ? sample : current + ALPHA * (sample - current);
+            if (ewmaBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Smoothed latency in milliseconds, or 0 before the first response (so new gateways get tried)
+     */
+    public double getAverageMillis() {
+        return Math.max(0, Double.longBitsToDouble(ewmaBits.get()));
+    }
+
+    /**
+     * Smoothed latency in milliseconds, or the given value before the first sample
+     */
+    public double getAverageMillis(double unmeasuredMillis) {
+        double current = Double.longBitsToDouble(ewmaBits.get());
+        return current < 0 ? unmeasuredMillis : current;
+    }
+
+    public boolean isMeasured() {
+        return ewmaBits.get() != UNMEASURED;
+    }
+}
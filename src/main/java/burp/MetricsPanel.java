@@ -0,0 +1,245 @@
+package burp;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Metrics" tab: requests per second, error rate and latency percentiles per domain and
+ * per region over the last 5, 15 or 60 minutes, with a throughput chart for the selected row.
+ *
+ * A background sampler summarises the TimeSeries into immutable rows once a second; a
+ * Swing timer picks up the latest sample at most FRAMES_PER_SECOND times a second. The
+ * EDT therefore only ever reads immutable snapshots and never touches the counters the
+ * HTTP handler writes to.
+ */
+public class MetricsPanel extends JPanel {
+    private static final int FRAMES_PER_SECOND = 4;
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+    private static final Integer[] WINDOWS = {5, 15, 60};
+
+    private final MetricsRegistry registry;
+    private final DefaultTableModel tableModel;
+    private final JTable table;
+    private final ThroughputChart chart = new ThroughputChart();
+    private final Timer repaintTimer;
+    private ScheduledFuture<?> sampler;
+
+    private volatile int windowMinutes = WINDOWS[0];
+    private volatile List<Row> latest = new ArrayList<>();
+    private List<Row> displayed;
+
+    public MetricsPanel(MetricsRegistry registry) {
+        super(new BorderLayout(10, 10));
+        this.registry = registry;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Window:"));
+        JComboBox<Integer> windowCombo = new JComboBox<>(WINDOWS);
+        windowCombo.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, "Last " + value + " minutes", index,
+                        isSelected, cellHasFocus);
+            }
+        });
+        windowCombo.addActionListener(e -> windowMinutes = (Integer) windowCombo.getSelectedItem());
+        controls.add(windowCombo);
+        controls.add(new JLabel("Errors are 403, 429, 5xx and requests without a response"));
+        add(controls, BorderLayout.NORTH);
+
+        String[] columns = {"Type", "Name", "Req/s", "Requests", "Error %", "p50 ms", "p90 ms", "p99 ms"};
+        tableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showSelected();
+            }
+        });
+
+        chart.setBorder(BorderFactory.createTitledBorder("Requests/s (blue) and errors/s (red), 10 s resolution"));
+        chart.setPreferredSize(new Dimension(600, 220));
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), chart);
+        splitPane.setResizeWeight(0.6);
+        add(splitPane, BorderLayout.CENTER);
+
+        repaintTimer = new Timer(1000 / FRAMES_PER_SECOND, e -> refresh());
+    }
+
+    /**
+     * Start sampling on the given executor and repainting on the EDT
+     */
+    public void start(ScheduledExecutorService executor) {
+        sampler = executor.scheduleWithFixedDelay(this::sample, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        repaintTimer.start();
+    }
+
+    public void stop() {
+        repaintTimer.stop();
+        if (sampler != null) {
+            sampler.cancel(false);
+        }
+    }
+
+    /**
+     * Summarise every domain and region for the current window (sampler task)
+     */
+    private void sample() {
+        int minutes = windowMinutes;
+        List<Row> rows = new ArrayList<>();
+        addRows(rows, "Domain", registry.getDomainMetrics(), minutes);
+        addRows(rows, "Region", registry.getRegionMetrics(), minutes);
+        latest = rows;
+    }
+
+    private static void addRows(List<Row> rows, String type, Map<String, TrafficMetrics> metrics, int minutes) {
+        for (Map.Entry<String, TrafficMetrics> entry : metrics.entrySet()) {
+            TimeSeries history = entry.getValue().getHistory();
+            if (history != null) {
+                rows.add(new Row(type, entry.getKey(), history.window(minutes)));
+            }
+        }
+    }
+
+    /**
+     * Show the latest sample if it changed since the last frame (EDT)
+     */
+    private void refresh() {
+        List<Row> rows = latest;
+        if (rows == displayed || !isShowing()) {
+            return;
+        }
+        displayed = rows;
+
+        if (tableModel.getRowCount() != rows.size()) {
+            tableModel.setRowCount(rows.size());
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            TimeSeries.Window window = row.window;
+            setCell(i, 0, row.type);
+            setCell(i, 1, row.name);
+            setCell(i, 2, String.format("%.2f", window.requestsPerSecond));
+            setCell(i, 3, window.requests);
+            setCell(i, 4, String.format("%.1f", window.errorRate * 100));
+            setCell(i, 5, window.p50Millis);
+            setCell(i, 6, window.p90Millis);
+            setCell(i, 7, window.p99Millis);
+        }
+        showSelected();
+    }
+
+    private void setCell(int row, int column, Object value) {
+        // Only fire change events for cells that actually changed, so the selection stays put
+        if (!value.equals(tableModel.getValueAt(row, column))) {
+            tableModel.setValueAt(value, row, column);
+        }
+    }
+
+    private void showSelected() {
+        int selected = table.getSelectedRow();
+        List<Row> rows = displayed;
+        if (rows != null && selected >= 0 && selected < rows.size()) {
+            Row row = rows.get(selected);
+            chart.show(row.type + " " + row.name, row.window);
+        } else {
+            chart.show(null, null);
+        }
+    }
+
+    private static final class Row {
+        final String type;
+        final String name;
+        final TimeSeries.Window window;
+
+        Row(String type, String name, TimeSeries.Window window) {
+            this.type = type;
+            this.name = name;
+            this.window = window;
+        }
+    }
+
+    /**
+     * Line chart of one window's per-slot request and error rates
+     */
+    private static final class ThroughputChart extends JComponent {
+        private String title;
+        private TimeSeries.Window window;
+
+        void show(String title, TimeSeries.Window window) {
+            this.title = title;
+            this.window = window;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Insets insets = getInsets();
+            int x0 = insets.left + 40;
+            int y0 = insets.top + 20;
+            int width = getWidth() - x0 - insets.right - 10;
+            int height = getHeight() - y0 - insets.bottom - 10;
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            if (window == null) {
+                g2.setColor(Color.GRAY);
+                g2.drawString("Select a domain or region", x0, y0 + height / 2);
+                g2.dispose();
+                return;
+            }
+
+            double[] requests = window.requestsPerSecondSeries;
+            double[] errors = window.errorsPerSecondSeries;
+            double max = 1;
+            for (double value : requests) {
+                max = Math.max(max, value);
+            }
+
+            g2.setColor(Color.GRAY);
+            g2.drawRect(x0, y0, width, height);
+            g2.drawString(String.format("%.1f", max), insets.left + 2, y0 + 10);
+            g2.drawString("0", insets.left + 2, y0 + height);
+            g2.drawString(title + " - last " + window.minutes + " minutes", x0, y0 - 5);
+
+            drawSeries(g2, requests, max, x0, y0, width, height, new Color(0, 102, 204));
+            drawSeries(g2, errors, max, x0, y0, width, height, new Color(204, 0, 0));
+            g2.dispose();
+        }
+
+        private static void drawSeries(Graphics2D g2, double[] series, double max,
+                                       int x0, int y0, int width, int height, Color color) {
+            if (series.length < 2) {
+                return;
+            }
+            g2.setColor(color);
+            int previousX = x0;
+            int previousY = y0 + height - (int) (series[0] / max * height);
+            for (int i = 1; i < series.length; i++) {
+                int x = x0 + (int) ((long) i * width / (series.length - 1));
+                int y = y0 + height - (int) (series[i] / max * height);
+                g2.drawLine(previousX, previousY, x, y);
+                previousX = x;
+                previousY = y;
+            }
+        }
+    }
+}
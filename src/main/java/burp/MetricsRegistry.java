@@ -0,0 +1,123 @@
+package burp;
+
+import burp.api.montoya.http.message.HttpMessage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Traffic metrics keyed by gateway host, by domain and by AWS region.
+ *
+ * Metrics objects are looked up when routing is published and attached to the gateway
+ * endpoints and domain routes, so the HTTP handler records through direct references
+ * instead of a map lookup. Metrics for gateways, domains and regions that are no longer
+ * configured are dropped on the next publish. Domains and regions keep an hour of
+ * history for the Metrics tab; gateways only keep totals.
+ */
+public final class MetricsRegistry {
+    private volatile Map<String, TrafficMetrics> byGateway = new TreeMap<>();
+    private volatile Map<String, TrafficMetrics> byDomain = new TreeMap<>();
+    private volatile Map<String, TrafficMetrics> byRegion = new TreeMap<>();
+
+    /**
+     * Attach metrics to every gateway of the given domains (called on the EDT on publish)
+     */
+    synchronized void bind(Collection<DomainConfig> domainConfigs) {
+        Map<String, TrafficMetrics> gateways = new TreeMap<>();
+        Map<String, TrafficMetrics> domains = new TreeMap<>();
+        Map<String, TrafficMetrics> regions = new TreeMap<>();
+        Map<String, TrafficMetrics> previousGateways = byGateway;
+        Map<String, TrafficMetrics> previousDomains = byDomain;
+        Map<String, TrafficMetrics> previousRegions = byRegion;
+
+        for (DomainConfig domainConfig : domainConfigs) {
+            domains.put(domainConfig.getDomain(), reuseOrCreate(previousDomains, domainConfig.getDomain(), true));
+            for (GatewayEndpoint endpoint : domainConfig.getEndpoints()) {
+                TrafficMetrics gateway = gateways.computeIfAbsent(endpoint.getHost(),
+                        host -> reuseOrCreate(previousGateways, host, false));
+                TrafficMetrics region = regions.computeIfAbsent(endpoint.getGateway().getRegion(),
+                        name -> reuseOrCreate(previousRegions, name, true));
+                endpoint.bindMetrics(gateway, region);
+            }
+        }
+
+        byGateway = gateways;
+        byDomain = domains;
+        byRegion = regions;
+    }
+
+    private static TrafficMetrics reuseOrCreate(Map<String, TrafficMetrics> previous, String key,
+                                                boolean keepHistory) {
+        TrafficMetrics metrics = previous.get(key);
+        return metrics != null ? metrics : new TrafficMetrics(keepHistory);
+    }
+
+    TrafficMetrics forDomain(String domain) {
+        TrafficMetrics metrics = byDomain.get(domain);
+        return metrics != null ? metrics : new TrafficMetrics(true);
+    }
+
+    /**
+     * Gateway host to metrics, sorted by host (read-only)
+     */
+    public Map<String, TrafficMetrics> getGatewayMetrics() {
+        return byGateway;
+    }
+
+    /**
+     * Domain to metrics, sorted by domain (read-only)
+     */
+    public Map<String, TrafficMetrics> getDomainMetrics() {
+        return byDomain;
+    }
+
+    /**
+     * AWS region to metrics, sorted by region (read-only)
+     */
+    public Map<String, TrafficMetrics> getRegionMetrics() {
+        return byRegion;
+    }
+
+    /**
+     * Record a request sent through a gateway against its gateway, region and domain
+     */
+    static void recordRequest(DomainRoute route, GatewayEndpoint endpoint, long bytes) {
+        endpoint.getMetrics().recordRequest(bytes);
+        endpoint.getRegionMetrics().recordRequest(bytes);
+        route.getMetrics().recordRequest(bytes);
+    }
+
+    static void recordResponse(DomainRoute route, GatewayEndpoint endpoint, int statusCode, long bytes,
+                               long latencyNanos) {
+        endpoint.getMetrics().recordResponse(statusCode, bytes, latencyNanos);
+        endpoint.getRegionMetrics().recordResponse(statusCode, bytes, latencyNanos);
+        route.getMetrics().recordResponse(statusCode, bytes, latencyNanos);
+    }
+
+    /**
+     * Size of a message on the wire: its headers plus the Content-Length it declares. The
+     * body is only read when there is no usable Content-Length (e.g. chunked responses),
+     * since body() copies it on every call.
+     */
+    static long messageBytes(HttpMessage message) {
+        String contentLength = message.headerValue("Content-Length");
+        if (contentLength != null) {
+            try {
+                long length = Long.parseLong(contentLength.trim());
+                if (length >= 0) {
+                    return message.bodyOffset() + length;
+                }
+            } catch (NumberFormatException e) {
+                // Malformed header; measure the body instead
+            }
+        }
+        return message.bodyOffset() + message.body().length();
+    }
+
+    static void recordNoResponse(DomainRoute route, GatewayEndpoint endpoint) {
+        endpoint.getMetrics().recordNoResponse();
+        endpoint.getRegionMetrics().recordNoResponse();
+        route.getMetrics().recordNoResponse();
+    }
+}
@@ -0,0 +1,145 @@
+package burp;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side request quotas per gateway and per AWS region.
+ *
+ * API Gateway throttles each stage and each account/region; going over either comes back
+ * as a wave of 429s. Every gateway endpoint is bound to a token bucket for its host and
+ * one shared by all gateways in its region, and the rotation engine skips gateways whose
+ * buckets are empty. When every gateway of a domain is saturated the request either waits
+ * (up to a bounded time) for the next permit or is sent directly to the target.
+ */
+public final class RateLimiter {
+    public enum SaturatedAction {
+        WAIT("Wait for a permit (up to the max wait), then send anyway"),
+        DIRECT("Send directly to the target without rotation");
+
+        private final String description;
+
+        SaturatedAction(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return name().charAt(0) + name().substring(1).toLowerCase();
+        }
+    }
+
+    /**
+     * Immutable rate limit tuning. A rate of 0 disables that level of limiting.
+     */
+    public static final class Settings {
+        public static final Settings DEFAULT = new Settings(0, 10, 0, 50, SaturatedAction.WAIT, 5000);
+
+        public final int gatewayPerSecond;   // per gateway host (0 = unlimited)
+        public final int gatewayBurst;
+        public final int regionPerSecond;    // shared by all gateways in a region (0 = unlimited)
+        public final int regionBurst;
+        public final SaturatedAction onSaturated;
+        public final long maxWaitMs;         // backpressure bound for WAIT
+
+        public Settings(int gatewayPerSecond, int gatewayBurst, int regionPerSecond, int regionBurst,
+                        SaturatedAction onSaturated, long maxWaitMs) {
+            this.gatewayPerSecond = Math.max(0, gatewayPerSecond);
+            this.gatewayBurst = Math.max(1, gatewayBurst);
+            this.regionPerSecond = Math.max(0, regionPerSecond);
+            this.regionBurst = Math.max(1, regionBurst);
+            this.onSaturated = onSaturated != null ? onSaturated : SaturatedAction.WAIT;
+            this.maxWaitMs = Math.max(0, maxWaitMs);
+        }
+
+        public boolean isEnabled() {
+            return gatewayPerSecond > 0 || regionPerSecond > 0;
+        }
+
+        boolean sameLimits(Settings other) {
+            return other != null
+                    && gatewayPerSecond == other.gatewayPerSecond && gatewayBurst == other.gatewayBurst
+                    && regionPerSecond == other.regionPerSecond && regionBurst == other.regionBurst;
+        }
+    }
+
+    private volatile Settings settings = Settings.DEFAULT;
+    private Settings boundSettings;
+    private Map<String, TokenBucket> gatewayBuckets = new HashMap<>();
+    private Map<String, TokenBucket> regionBuckets = new HashMap<>();
+
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder sentOverLimit = new LongAdder();
+    private final LongAdder sentDirect = new LongAdder();
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Attach buckets to every gateway of the given domains. Called on the EDT when routing is
+     * published; buckets are reused while the limits are unchanged, so publishing does not
+     * refill them, and buckets of removed gateways and regions are dropped.
+     */
+    synchronized void bind(Collection<DomainConfig> domainConfigs) {
+        Settings current = settings;
+        boolean reuse = current.sameLimits(boundSettings);
+        Map<String, TokenBucket> gateways = new HashMap<>();
+        Map<String, TokenBucket> regions = new HashMap<>();
+
+        for (DomainConfig domainConfig : domainConfigs) {
+            for (GatewayEndpoint endpoint : domainConfig.getEndpoints()) {
+                TokenBucket gatewayBucket = null;
+                TokenBucket regionBucket = null;
+                if (current.gatewayPerSecond > 0) {
+                    gatewayBucket = gateways.computeIfAbsent(endpoint.getHost(), host ->
+                            reuse && gatewayBuckets.containsKey(host) ? gatewayBuckets.get(host)
+                                    : new TokenBucket(current.gatewayPerSecond, current.gatewayBurst));
+                }
+                if (current.regionPerSecond > 0) {
+                    regionBucket = regions.computeIfAbsent(endpoint.getGateway().getRegion(), region ->
+                            reuse && regionBuckets.containsKey(region) ? regionBuckets.get(region)
+                                    : new TokenBucket(current.regionPerSecond, current.regionBurst));
+                }
+                endpoint.bindRateLimits(gatewayBucket, regionBucket);
+            }
+        }
+
+        gatewayBuckets = gateways;
+        regionBuckets = regions;
+        boundSettings = current;
+    }
+
+    void recordWaited() {
+        waited.increment();
+    }
+
+    void recordSentOverLimit() {
+        sentOverLimit.increment();
+    }
+
+    void recordSentDirect() {
+        sentDirect.increment();
+    }
+
+    /**
+     * Counters for the UI
+     */
+    public String describe() {
+        if (!settings.isEnabled()) {
+            return "off";
+        }
+        return String.format("%d waited, %d sent over limit, %d sent direct",
+                waited.sum(), sentOverLimit.sum(), sentDirect.sum());
+    }
+}
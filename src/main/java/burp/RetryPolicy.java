@@ -0,0 +1,116 @@
+package burp;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a throttled or failed gateway response is resent through another gateway.
+ *
+ * A request gets at most maxRetries extra attempts, each after a full-jitter exponential
+ * backoff. On top of that, a shared retry budget caps retries at a percentage of
+ * normal traffic (plus a small reserve). This keeps a regional outage from turning every
+ * Intruder request into several.
+ *
+ * Montoya handlers must return the final response, so retries run on Burp's response
+ * thread and stall the tool that sent the request while they do. MAX_RETRY_DELAY_MS caps
+ * how long: backoffs that would run past it are skipped and each resend only waits for
+ * the time left. Resends carry MARKER_HEADER so the request handler sends them unchanged
+ * instead of routing them again; the header is stripped before they leave Burp.
+ */
+public final class RetryPolicy {
+    /**
+     * Immutable retry tuning
+     */
+    public static final class Settings {
+        public static final Settings DEFAULT = new Settings(false, 2, 200, 10);
+
+        public final boolean enabled;
+        public final int maxRetries;        // extra attempts per request
+        public final long baseBackoffMs;    // backoff before retry n is random(0, base * 2^(n-1))
+        public final int budgetPercent;     // retries allowed as a percentage of responses
+
+        public Settings(boolean enabled, int maxRetries, long baseBackoffMs, int budgetPercent) {
+            this.enabled = enabled;
+            this.maxRetries = Math.max(1, maxRetries);
+            this.baseBackoffMs = Math.max(0, baseBackoffMs);
+            this.budgetPercent = Math.max(1, Math.min(100, budgetPercent));
+        }
+    }
+
+    /**
+     * Longest one response's retries (backoffs and resends together) may hold Burp's response thread
+     */
+    public static final long MAX_RETRY_DELAY_MS = 10_000;
+    static final String MARKER_HEADER = "X-AWS-IP-Rotator-Retry";
+
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final long RETRY_COST = 100;            // budget units per retry
+    private static final long BUDGET_RESERVE = 10 * RETRY_COST;
+
+    private volatile Settings settings = Settings.DEFAULT;
+    private final AtomicLong budget = new AtomicLong(BUDGET_RESERVE);
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Status codes worth retrying through a different gateway
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Credit the budget for a response that needed no retry
+     */
+    void onResponse() {
+        long current = budget.get();
+        if (current < BUDGET_RESERVE) {
+            budget.compareAndSet(current, Math.min(BUDGET_RESERVE, current + settings.budgetPercent));
+        }
+    }
+
+    /**
+     * Take budget for one retry, or return false if retries are being sent too often
+     */
+    boolean tryAcquireRetry() {
+        while (true) {
+            long current = budget.get();
+            if (current < RETRY_COST) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - RETRY_COST)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sleep before the given retry (1-based) with full jitter. Returns false, without
+     * sleeping, if the backoff would end at or past the deadline (System.nanoTime), or if
+     * interrupted.
+     */
+    boolean backoff(int retry, long deadlineNanos) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, settings.baseBackoffMs << Math.min(retry - 1, 16));
+        long sleepNanos = ceiling > 0 ? TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1)) : 0;
+        if (deadlineNanos - System.nanoTime() <= sleepNanos) {
+            return false;
+        }
+        if (sleepNanos == 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
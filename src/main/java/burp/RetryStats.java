@@ -0,0 +1,37 @@
+package burp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-domain retry counters, shown on the Domain Mappings panel
+ */
+final class RetryStats {
+    private final LongAdder attempted = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    void recordAttempt() {
+        attempted.increment();
+    }
+
+    void recordRecovered() {
+        recovered.increment();
+    }
+
+    void recordExhausted() {
+        exhausted.increment();
+    }
+
+    /**
+     * A retryable failure that was not retried (budget spent or no other gateway available)
+     */
+    void recordSkipped() {
+        skipped.increment();
+    }
+
+    String describe() {
+        return String.format("Retries: %d sent, %d recovered, %d exhausted, %d skipped",
+                attempted.sum(), recovered.sum(), exhausted.sum(), skipped.sum());
+    }
+}
@@ -0,0 +1,316 @@
+package burp;
+
+import burp.api.montoya.logging.Logging;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous request-rewrite log.
+ *
+ * The HTTP handler only claims a slot in a pre-allocated ring buffer and copies a few
+ * references into it; formatting and writing to Burp's output pane happen in one
+ * periodic background task. The ring also keeps the last CAPACITY rewrites for an on-demand
+ * dump from the UI. When the level is OFF the handler returns before touching the ring.
+ *
+ * A producer claims its slot by swapping the slot's older sequence for WRITING. If another
+ * producer a full lap ahead or behind already holds the slot, the later one drops its
+ * entry rather than interleave fields with it. Readers check the slot's sequence with
+ * acquire loads before and after copying the payload, so a copy that raced a producer is
+ * discarded. The drain counts every entry it could not read intact (overwritten, or
+ * dropped by its producer) as dropped, and reports drops at every level but OFF.
+ */
+public class RewriteLog {
+    public enum Level {
+        OFF("Off - No rewrite logging"),
+        SUMMARY("Summary - Log a rewrite count every N seconds"),
+        SAMPLED("Sampled - Log 1 in every N rewrites"),
+        FULL("Full - Log every rewrite");
+
+        private final String description;
+
+        Level(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return name().charAt(0) + name().substring(1).toLowerCase();
+        }
+    }
+
+    public static final int CAPACITY = 1024; // must be a power of two
+    private static final long DRAIN_INTERVAL_MS = 250;
+    private static final long DROP_REPORT_INTERVAL_MS = 10_000;
+    private static final long WRITING = -1; // slot sequence while a producer fills it
+    private static final long EMPTY = -2;   // slot sequence before its first write
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final Logging logging;
+    private final Slot[] slots;
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final LongAdder rewriteCount = new LongAdder();
+    private volatile Level level = Level.SUMMARY;
+    private volatile int every = 10;
+    private ScheduledFuture<?> drainer;
+
+    // Only touched by the drain task (runs never overlap)
+    private long readSequence;
+    private long lastSummaryMillis = System.currentTimeMillis();
+    private long lastDropReportMillis = lastSummaryMillis;
+    private long dropped;
+
+    public RewriteLog(Logging logging) {
+        this.logging = logging;
+        this.slots = new Slot[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Seconds between summaries (SUMMARY) or the sampling ratio (SAMPLED)
+     */
+    public int getEvery() {
+        return every;
+    }
+
+    public void setEvery(int every) {
+        this.every = Math.max(1, every);
+    }
+
+    /**
+     * Record a rewrite from the HTTP handler. Never blocks and allocates nothing.
+     */
+    public void record(boolean originalSecure, String originalHost, String originalPath,
+                       GatewayEndpoint endpoint, String gatewayPath, DomainConfig.RotationStrategy strategy) {
+        Level current = level;
+        if (current == Level.OFF) {
+            return;
+        }
+
+        rewriteCount.increment();
+        long sequence = writeSequence.getAndIncrement();
+        Slot slot = slots[(int) (sequence & (CAPACITY - 1))];
+
+        // Claim the slot so readers skip it while half-written; give up if another lap holds it
+        long previous = (long) Slot.SEQUENCE.getAcquire(slot);
+        if (previous == WRITING || previous >= sequence || !Slot.SEQUENCE.compareAndSet(slot, previous, WRITING)) {
+            return;
+        }
+        slot.timestampMillis = System.currentTimeMillis();
+        slot.originalSecure = originalSecure;
+        slot.originalHost = originalHost;
+        slot.originalPath = originalPath;
+        slot.endpoint = endpoint;
+        slot.gatewayPath = gatewayPath;
+        slot.strategy = strategy;
+        slot.print = current == Level.FULL || (current == Level.SAMPLED && sequence % every == 0);
+        Slot.SEQUENCE.setRelease(slot, sequence); // publish
+    }
+
+    /**
+     * Start draining on the given executor
+     */
+    public synchronized void start(ScheduledExecutorService executor) {
+        if (drainer != null) {
+            return;
+        }
+        drainer = executor.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop draining (called when the extension is unloaded)
+     */
+    public synchronized void stop() {
+        if (drainer != null) {
+            drainer.cancel(false);
+            drainer = null;
+        }
+    }
+
+    /**
+     * Format the most recent rewrites still held in the ring, oldest first
+     */
+    public List<String> recent(int max) {
+        long end = writeSequence.get();
+        long start = Math.max(0, end - Math.min(max, CAPACITY));
+        List<String> lines = new ArrayList<>();
+        Entry entry = new Entry();
+        for (long sequence = start; sequence < end; sequence++) {
+            if (entry.copyFrom(slots[(int) (sequence & (CAPACITY - 1))], sequence)) {
+                lines.add(entry.toLine());
+            }
+        }
+        return lines;
+    }
+
+    private void drain() {
+        try {
+            long end = writeSequence.get();
+            if (end - readSequence > CAPACITY) {
+                // Producers lapped us; the oldest entries have been overwritten
+                dropped += end - CAPACITY - readSequence;
+                readSequence = end - CAPACITY;
+            }
+
+            Entry entry = new Entry();
+            while (readSequence < end) {
+                Slot slot = slots[(int) (readSequence & (CAPACITY - 1))];
+                if ((long) Slot.SEQUENCE.getAcquire(slot) == WRITING) {
+                    break; // still being written; pick it up on the next pass
+                }
+                if (!entry.copyFrom(slot, readSequence)) {
+                    dropped++; // overwritten by a later lap, or its producer gave up the slot
+                } else if (entry.print) {
+                    logging.logToOutput(entry.toMessage());
+                }
+                readSequence++;
+            }
+
+            logSummaryIfDue();
+            reportDropsIfDue();
+        } catch (Exception e) {
+            logging.logToError("Rewrite log drain failed: " + e.getMessage());
+        }
+    }
+
+    private void logSummaryIfDue() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - lastSummaryMillis;
+        if (level != Level.SUMMARY || elapsed < every * 1000L) {
+            return;
+        }
+
+        long count = rewriteCount.sumThenReset();
+        lastSummaryMillis = now;
+        if (count > 0) {
+            logging.logToOutput(String.format("[AWS IP Rotator] %d request(s) rewritten in the last %ds (%.1f req/s)",
+                    count, elapsed / 1000, count * 1000.0 / elapsed));
+        }
+    }
+
+    /**
+     * Drops can happen at any level but OFF, so they get their own fixed interval
+     */
+    private void reportDropsIfDue() {
+        long now = System.currentTimeMillis();
+        if (dropped == 0 || now - lastDropReportMillis < DROP_REPORT_INTERVAL_MS) {
+            return;
+        }
+        lastDropReportMillis = now;
+        logging.logToOutput("[AWS IP Rotator] " + dropped + " rewrite log entries dropped (log fell behind)");
+        dropped = 0;
+    }
+
+    private static final class Slot {
+        static final VarHandle SEQUENCE;
+
+        static {
+            try {
+                SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long sequence = EMPTY; // only accessed through SEQUENCE after construction
+        long timestampMillis;
+        boolean originalSecure;
+        String originalHost;
+        String originalPath;
+        GatewayEndpoint endpoint;
+        String gatewayPath;
+        DomainConfig.RotationStrategy strategy;
+        boolean print;
+    }
+
+    /**
+     * Reader-side copy of a slot, validated against concurrent overwrites
+     */
+    private static final class Entry {
+        long timestampMillis;
+        boolean originalSecure;
+        String originalHost;
+        String originalPath;
+        GatewayEndpoint endpoint;
+        String gatewayPath;
+        DomainConfig.RotationStrategy strategy;
+        boolean print;
+
+        boolean copyFrom(Slot slot, long sequence) {
+            if ((long) Slot.SEQUENCE.getAcquire(slot) != sequence) {
+                return false;
+            }
+            timestampMillis = slot.timestampMillis;
+            originalSecure = slot.originalSecure;
+            originalHost = slot.originalHost;
+            originalPath = slot.originalPath;
+            endpoint = slot.endpoint;
+            gatewayPath = slot.gatewayPath;
+            strategy = slot.strategy;
+            print = slot.print;
+            // A producer may have reused the slot while we were copying. The fence keeps the
+            // payload reads above from moving past the second sequence check.
+            VarHandle.acquireFence();
+            return (long) Slot.SEQUENCE.getAcquire(slot) == sequence;
+        }
+
+        String toMessage() {
+            return String.format(
+                "[AWS IP Rotator] Request Rewritten:\n" +
+                "  Original: %s://%s%s\n" +
+                "  Gateway:  %s://%s%s\n" +
+                "  Host Header: %s -> %s\n" +
+                "  SNI: %s (auto-set by Montoya API)\n" +
+                "  Strategy: %s",
+                originalSecure ? "https" : "http",
+                originalHost,
+                originalPath,
+                endpoint.getScheme(),
+                endpoint.getHost(),
+                gatewayPath,
+                originalHost,
+                endpoint.getHost(),
+                endpoint.getHost(),
+                strategy
+            );
+        }
+
+        String toLine() {
+            return String.format("%s  %s://%s%s -> %s://%s%s  [%s]",
+                    TIME_FORMAT.format(Instant.ofEpochMilli(timestampMillis)),
+                    originalSecure ? "https" : "http",
+                    originalHost,
+                    originalPath,
+                    endpoint.getScheme(),
+                    endpoint.getHost(),
+                    gatewayPath,
+                    strategy);
+        }
+    }
+}
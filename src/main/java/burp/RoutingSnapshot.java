@@ -0,0 +1,75 @@
+package burp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Point-in-time routing table for the HTTP handler.
+ *
+ * UI edits mutate DomainConfig objects on the EDT and then publish a fresh snapshot
+ * through a single volatile reference. The handler reads that reference once per
+ * request, so it always sees one consistent set of domains, gateways and strategies.
+ *
+ * Only that table is frozen. The GatewayEndpoints it routes to are shared with the
+ * DomainConfigs and with earlier snapshots, and carry live state: circuit breakers,
+ * and the rate limit buckets and metrics that of() rebinds in place on every publish.
+ * A request still holding an older snapshot therefore counts against the current
+ * buckets and metrics, which is what keeps them from resetting on each edit.
+ */
+public final class RoutingSnapshot {
+    public static final RoutingSnapshot EMPTY =
+            new RoutingSnapshot(false, false, CircuitBreaker.Settings.DEFAULT, HostIndex.empty());
+
+    private final boolean enabled;
+    private final boolean preserveOriginalHost;
+    private final CircuitBreaker.Settings breakerSettings;
+    private final HostIndex<DomainRoute> routes;
+
+    private RoutingSnapshot(boolean enabled, boolean preserveOriginalHost, CircuitBreaker.Settings breakerSettings,
+                            HostIndex<DomainRoute> routes) {
+        this.enabled = enabled;
+        this.preserveOriginalHost = preserveOriginalHost;
+        this.breakerSettings = breakerSettings;
+        this.routes = routes;
+    }
+
+    /**
+     * Capture the current domain configurations into a new snapshot. Rebinds each
+     * gateway's rate limit buckets and metrics in place as a side effect (see above).
+     */
+    public static RoutingSnapshot of(boolean enabled, boolean preserveOriginalHost,
+                                     CircuitBreaker.Settings breakerSettings, RateLimiter rateLimiter,
+                                     MetricsRegistry metrics, Map<String, DomainConfig> domainConfigs) {
+        rateLimiter.bind(domainConfigs.values());
+        metrics.bind(domainConfigs.values());
+        Map<String, DomainRoute> routes = new HashMap<>();
+        for (Map.Entry<String, DomainConfig> entry : domainConfigs.entrySet()) {
+            routes.put(entry.getKey(), entry.getValue().toRoute(breakerSettings, rateLimiter,
+                    metrics.forDomain(entry.getValue().getDomain())));
+        }
+        return new RoutingSnapshot(enabled, preserveOriginalHost, breakerSettings, HostIndex.build(routes));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isPreserveOriginalHost() {
+        return preserveOriginalHost;
+    }
+
+    public CircuitBreaker.Settings getBreakerSettings() {
+        return breakerSettings;
+    }
+
+    public boolean isEmpty() {
+        return routes.isEmpty();
+    }
+
+    /**
+     * Find the route for a request host (case-insensitive exact host, then wildcard)
+     */
+    public DomainRoute route(String host) {
+        return routes.lookup(host);
+    }
+}
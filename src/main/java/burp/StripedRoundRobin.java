@@ -0,0 +1,48 @@
+package burp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Round robin counter striped across cache lines so concurrent threads rarely touch
+ * the same counter.
+ *
+ * Each thread hashes to one stripe; every stripe is an independent round robin over
+ * the gateway array that starts at a different offset, so the combined distribution
+ * stays even (each gateway is within one pick per stripe of any other). Tickets are
+ * plain increments reduced modulo the current array length, so a change in gateway
+ * count never makes the sequence skip or repeat because of a stale modulo.
+ */
+final class StripedRoundRobin {
+    // 8 longs = one 64-byte cache line per stripe
+    private static final int PADDING = 8;
+    private static final int STRIPES = stripeCount();
+
+    private final AtomicLongArray tickets;
+
+    StripedRoundRobin() {
+        tickets = new AtomicLongArray(STRIPES * PADDING);
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            tickets.set(stripe * PADDING, stripe);
+        }
+    }
+
+    /**
+     * Next index in [0, size) for the calling thread
+     */
+    int next(int size) {
+        long ticket = tickets.getAndIncrement(stripeOf(Thread.currentThread()) * PADDING);
+        return (int) (ticket % size);
+    }
+
+    private static int stripeOf(Thread thread) {
+        // Fibonacci hashing spreads sequential thread ids across stripes
+        int hash = (int) (thread.getId() * 0x9E3779B97F4A7C15L >>> 32);
+        return hash & (STRIPES - 1);
+    }
+
+    private static int stripeCount() {
+        // Power of two at least the core count, capped at 64
+        int cores = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+        return Integer.highestOneBit(Math.max(1, cores - 1)) << 1;
+    }
+}
@@ -0,0 +1,188 @@
+package burp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size rolling history of requests, errors and latency for the last hour.
+ *
+ * Request and error counts go into 360 ten-second slots (for rates and the throughput
+ * chart); latency goes into 61 one-minute slots of coarse log-linear buckets (12.5%
+ * precision) for windowed percentiles. Slots live in flat primitive arrays and are
+ * recycled as time moves on, so memory stays constant however long a scan runs and
+ * recording allocates nothing. When a slot is recycled, counts recorded concurrently by
+ * another thread may be dropped; the series is for a dashboard, not for accounting.
+ * Reads are only done by the metrics sampler task, never by the HTTP handler or EDT.
+ */
+public final class TimeSeries {
+    static final int RATE_SLOT_SECONDS = 10;
+    static final int RATE_SLOTS = 360;
+    static final int LATENCY_SLOT_SECONDS = 60;
+    static final int LATENCY_SLOTS = 61;
+
+    private static final int REQUESTS = 0;
+    private static final int RESPONSES = 1;
+    private static final int ERRORS = 2;
+    private static final int RATE_FIELDS = 3;
+
+    private static final int LATENCY_SUB_BUCKET_BITS = 2;
+    private static final int LATENCY_MAX_EXPONENT = 17; // ~4 minutes in milliseconds
+    private static final long LATENCY_MAX_MS = (1L << (LATENCY_MAX_EXPONENT + 1)) - 1;
+    private static final int LATENCY_BUCKETS =
+            LatencyHistogram.bucketCount(LATENCY_MAX_EXPONENT, LATENCY_SUB_BUCKET_BITS);
+
+    private final long originNanos = System.nanoTime();
+    private final SlotRing rates = new SlotRing(RATE_SLOT_SECONDS, RATE_SLOTS, RATE_FIELDS);
+    private final SlotRing latencies = new SlotRing(LATENCY_SLOT_SECONDS, LATENCY_SLOTS, LATENCY_BUCKETS);
+
+    public void recordRequest() {
+        long now = System.nanoTime();
+        rates.add(now, REQUESTS, 1);
+    }
+
+    public void recordResponse(boolean error, long latencyNanos) {
+        long now = System.nanoTime();
+        rates.add(now, RESPONSES, 1);
+        if (error) {
+            rates.add(now, ERRORS, 1);
+        }
+        long millis = Math.min(TimeUnit.NANOSECONDS.toMillis(latencyNanos), LATENCY_MAX_MS);
+        latencies.add(now, LatencyHistogram.indexOf(Math.max(0, millis), LATENCY_SUB_BUCKET_BITS), 1);
+    }
+
+    /**
+     * A request that never got a response counts as a failed response
+     */
+    public void recordNoResponse() {
+        long now = System.nanoTime();
+        rates.add(now, RESPONSES, 1);
+        rates.add(now, ERRORS, 1);
+    }
+
+    /**
+     * Summarise the last given number of minutes (up to 60)
+     */
+    public Window window(int minutes) {
+        long now = System.nanoTime();
+        int rateSlots = Math.min(RATE_SLOTS, minutes * 60 / RATE_SLOT_SECONDS);
+        long currentRate = rates.epochAt(now);
+
+        double[] requestsPerSecond = new double[rateSlots];
+        double[] errorsPerSecond = new double[rateSlots];
+        long requests = 0;
+        long responses = 0;
+        long errors = 0;
+        for (int i = 0; i < rateSlots; i++) {
+            long epoch = currentRate - (rateSlots - 1 - i);
+            long slotRequests = rates.get(epoch, REQUESTS);
+            long slotErrors = rates.get(epoch, ERRORS);
+            requestsPerSecond[i] = slotRequests / (double) RATE_SLOT_SECONDS;
+            errorsPerSecond[i] = slotErrors / (double) RATE_SLOT_SECONDS;
+            requests += slotRequests;
+            responses += rates.get(epoch, RESPONSES);
+            errors += slotErrors;
+        }
+
+        // Rate over the part of the window that has elapsed, including the partial current slot
+        double windowSeconds = Math.min(minutes * 60.0, (now - originNanos) / 1e9);
+        double rate = requests / Math.max(1.0, windowSeconds);
+
+        long[] latencyCounts = new long[LATENCY_BUCKETS];
+        long latencyTotal = 0;
+        long currentLatency = latencies.epochAt(now);
+        for (long epoch = currentLatency - Math.min(minutes, LATENCY_SLOTS - 1); epoch <= currentLatency; epoch++) {
+            for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+                long count = latencies.get(epoch, bucket);
+                latencyCounts[bucket] += count;
+                latencyTotal += count;
+            }
+        }
+
+        return new Window(minutes, requests, rate, responses > 0 ? errors / (double) responses : 0,
+                LatencyHistogram.percentile(latencyCounts, latencyTotal, 50, LATENCY_SUB_BUCKET_BITS),
+                LatencyHistogram.percentile(latencyCounts, latencyTotal, 90, LATENCY_SUB_BUCKET_BITS),
+                LatencyHistogram.percentile(latencyCounts, latencyTotal, 99, LATENCY_SUB_BUCKET_BITS),
+                requestsPerSecond, errorsPerSecond);
+    }
+
+    /**
+     * Immutable summary of one window, handed to the EDT for painting
+     */
+    public static final class Window {
+        public final int minutes;
+        public final long requests;
+        public final double requestsPerSecond;
+        public final double errorRate;
+        public final long p50Millis;
+        public final long p90Millis;
+        public final long p99Millis;
+        public final double[] requestsPerSecondSeries; // one point per 10 s slot, oldest first
+        public final double[] errorsPerSecondSeries;
+
+        Window(int minutes, long requests, double requestsPerSecond, double errorRate,
+               long p50Millis, long p90Millis, long p99Millis,
+               double[] requestsPerSecondSeries, double[] errorsPerSecondSeries) {
+            this.minutes = minutes;
+            this.requests = requests;
+            this.requestsPerSecond = requestsPerSecond;
+            this.errorRate = errorRate;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p99Millis = p99Millis;
+            this.requestsPerSecondSeries = requestsPerSecondSeries;
+            this.errorsPerSecondSeries = errorsPerSecondSeries;
+        }
+    }
+
+    /**
+     * Ring of fixed-width time slots, each holding a row of counters in one flat array.
+     * A slot is zeroed by whichever writer first moves it to a new epoch.
+     */
+    private final class SlotRing {
+        private final long slotNanos;
+        private final int slots;
+        private final int fields;
+        private final AtomicLongArray epochs;
+        private final AtomicLongArray values;
+
+        SlotRing(int slotSeconds, int slots, int fields) {
+            this.slotNanos = TimeUnit.SECONDS.toNanos(slotSeconds);
+            this.slots = slots;
+            this.fields = fields;
+            this.epochs = new AtomicLongArray(slots);
+            this.values = new AtomicLongArray(slots * fields);
+            for (int i = 0; i < slots; i++) {
+                epochs.set(i, -1);
+            }
+        }
+
+        long epochAt(long nanos) {
+            return (nanos - originNanos) / slotNanos;
+        }
+
+        void add(long nanos, int field, long delta) {
+            long epoch = epochAt(nanos);
+            int slot = (int) (epoch % slots);
+            long seen = epochs.get(slot);
+            if (seen != epoch) {
+                if (seen > epoch) {
+                    return; // a newer epoch already owns the slot; this sample is too old to matter
+                }
+                if (epochs.compareAndSet(slot, seen, epoch)) {
+                    for (int i = 0; i < fields; i++) {
+                        values.set(slot * fields + i, 0);
+                    }
+                }
+            }
+            values.addAndGet(slot * fields + field, delta);
+        }
+
+        long get(long epoch, int field) {
+            if (epoch < 0) {
+                return 0;
+            }
+            int slot = (int) (epoch % slots);
+            return epochs.get(slot) == epoch ? values.get(slot * fields + field) : 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package burp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as a single "theoretical arrival time" (the GCRA form).
+ *
+ * Each permit pushes the arrival time forward by one interval (1 / rate). A permit is
+ * granted while that time is no more than burst - 1 intervals ahead of now, so up to
+ * burst requests can go out back to back before the steady rate applies. Acquiring is
+ * one compare-and-set; there is no refill thread.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Take a permit if one is available right now
+     */
+    boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+            if (start - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a permit that was taken but not used
+     */
+    void release() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * How long until the next permit is available (0 if one is available now)
+     */
+    long nanosUntilAvailable() {
+        return Math.max(0, theoreticalArrival.get() - System.nanoTime() - toleranceNanos);
+    }
+}
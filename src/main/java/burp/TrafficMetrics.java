@@ -0,0 +1,121 @@
+package burp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request, byte, status-class and latency counters for one gateway, domain or region.
+ *
+ * All recording goes to LongAdders and a LatencyHistogram, so concurrent Burp tools
+ * don't contend on a shared counter and the HTTP handler allocates nothing. Domains and
+ * regions also keep a TimeSeries of the last hour for the Metrics tab.
+ */
+public final class TrafficMetrics {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder[] statusClasses = new LongAdder[6]; // index 1-5 = 1xx-5xx, 0 = other
+    private final LongAdder noResponse = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final TimeSeries history;
+
+    public TrafficMetrics() {
+        this(false);
+    }
+
+    public TrafficMetrics(boolean keepHistory) {
+        this.history = keepHistory ? new TimeSeries() : null;
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    public void recordRequest(long bytes) {
+        requests.increment();
+        requestBytes.add(bytes);
+        if (history != null) {
+            history.recordRequest();
+        }
+    }
+
+    public void recordResponse(int statusCode, long bytes, long latencyNanos) {
+        int statusClass = statusCode / 100;
+        statusClasses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+        responseBytes.add(bytes);
+        latency.recordNanos(latencyNanos);
+        if (history != null) {
+            history.recordResponse(GatewayHealth.isFailureStatus(statusCode), latencyNanos);
+        }
+    }
+
+    /**
+     * A request that never got a response (timed out or failed to connect)
+     */
+    public void recordNoResponse() {
+        noResponse.increment();
+        if (history != null) {
+            history.recordNoResponse();
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * Responses in the given status class (1-5 for 1xx-5xx)
+     */
+    public long getStatusClass(int statusClass) {
+        return statusClasses[statusClass].sum();
+    }
+
+    public long getNoResponse() {
+        return noResponse.sum();
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    /**
+     * Rolling history of the last hour, or null for gateways
+     */
+    public TimeSeries getHistory() {
+        return history;
+    }
+
+    /**
+     * One formatted row for the metrics view
+     */
+    public String describe(String name) {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        return String.format("%-60s %8d %10s %10s %7d %7d %7d %7d %7d %8.1f %8.1f %8.1f %8.1f",
+                name, getRequests(), formatBytes(getRequestBytes()), formatBytes(getResponseBytes()),
+                getStatusClass(2), getStatusClass(3), getStatusClass(4), getStatusClass(5), getNoResponse(),
+                snapshot.percentileMillis(50), snapshot.percentileMillis(90),
+                snapshot.percentileMillis(99), snapshot.percentileMillis(99.9));
+    }
+
+    public static String header(String nameColumn) {
+        return String.format("%-60s %8s %10s %10s %7s %7s %7s %7s %7s %8s %8s %8s %8s",
+                nameColumn, "Requests", "Sent", "Received", "2xx", "3xx", "4xx", "5xx", "No resp",
+                "p50 ms", "p90 ms", "p99 ms", "p999 ms");
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
@@ -0,0 +1,117 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AliasTable picks each index in proportion to its weight. Every table is sampled with a
+ * seeded Random, so every run draws the same sequence and the chi-square bound cannot flake.
+ */
+class AliasTableTest {
+    private static final long SEED = 20240611L;
+    private static final int DRAWS_PER_INDEX = 2000;
+    private static final double Z_999 = 3.090; // one-sided 0.999 quantile of the standard normal
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 10, 64, 500})
+    void selectionFrequenciesFollowWeights(int size) {
+        Random weightSource = new Random(SEED + size);
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = 1 + weightSource.nextInt(100);
+        }
+        assertFrequenciesFollowWeights(weights);
+    }
+
+    @Test
+    void extremeWeightsKeepTheirShare() {
+        // One heavy index among many at the minimum weight, and the reverse
+        int[] oneHeavy = new int[100];
+        int[] oneLight = new int[100];
+        for (int i = 0; i < 100; i++) {
+            oneHeavy[i] = i == 0 ? 100 : 1;
+            oneLight[i] = i == 0 ? 1 : 100;
+        }
+        assertFrequenciesFollowWeights(oneHeavy);
+        assertFrequenciesFollowWeights(oneLight);
+    }
+
+    @Test
+    void equalWeightsAreUniform() {
+        int[] equal = new int[50];
+        Arrays.fill(equal, 100);
+        assertFrequenciesFollowWeights(equal);
+    }
+
+    @Test
+    void singleEntryIsAlwaysPicked() {
+        AliasTable table = new AliasTable(new int[]{7});
+        Random random = new Random(SEED);
+        assertEquals(1, table.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, table.sample(random));
+        }
+    }
+
+    @Test
+    void sameSeedDrawsSameSequence() {
+        AliasTable table = new AliasTable(new int[]{5, 1, 30, 12});
+        Random first = new Random(SEED);
+        Random second = new Random(SEED);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(table.sample(first), table.sample(second));
+        }
+    }
+
+    private static void assertFrequenciesFollowWeights(int[] weights) {
+        AliasTable table = new AliasTable(weights);
+        assertEquals(weights.length, table.size());
+
+        Random random = new Random(SEED);
+        long[] observed = new long[weights.length];
+        for (int i = 0; i < DRAWS_PER_INDEX * weights.length; i++) {
+            observed[table.sample(random)]++;
+        }
+        assertChiSquareBelowCritical(observed, weights);
+    }
+
+    /**
+     * Chi-square goodness of fit of the observed counts against the weights, at 0.999
+     */
+    static void assertChiSquareBelowCritical(long[] observed, int[] weights) {
+        long draws = 0;
+        long totalWeight = 0;
+        for (int i = 0; i < weights.length; i++) {
+            draws += observed[i];
+            totalWeight += weights[i];
+        }
+        double chiSquare = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double expected = (double) draws * weights[i] / totalWeight;
+            double difference = observed[i] - expected;
+            chiSquare += difference * difference / expected;
+        }
+
+        int degreesOfFreedom = weights.length - 1;
+        double critical = chiSquareCritical(degreesOfFreedom);
+        assertTrue(chiSquare < critical, String.format(
+                "%d weights: chi-square %.1f exceeds the 0.999 critical value %.1f (df %d)",
+                weights.length, chiSquare, critical, degreesOfFreedom));
+    }
+
+    /**
+     * Wilson-Hilferty approximation of the chi-square 0.999 quantile; close enough from df 1 up
+     */
+    private static double chiSquareCritical(int degreesOfFreedom) {
+        double k = degreesOfFreedom;
+        double term = 1 - 2 / (9 * k) + Z_999 * Math.sqrt(2 / (9 * k));
+        return k * term * term * term;
+    }
+}
@@ -0,0 +1,83 @@
+package burp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls queued on the scheduler start once their buckets have permits and complete with
+ * the call's result.
+ */
+class ControlPlaneSchedulerTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ScheduledExecutorService dispatcher;
+    private ControlPlaneScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor();
+        scheduler = new ControlPlaneScheduler(dispatcher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+        dispatcher.shutdownNow();
+    }
+
+    @Test
+    void submittedCallCompletes() throws Exception {
+        CompletableFuture<String> result = scheduler.submit(ControlPlaneScheduler.Operation.READ, "us-east-1",
+                ControlPlaneScheduler.Priority.INTERACTIVE, () -> CompletableFuture.completedFuture("done"));
+
+        assertEquals("done", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(scheduler.describe().startsWith("0 queued, 0 in flight, 1 done"), scheduler.describe());
+    }
+
+    @Test
+    void burstOfReadsCompletesWithinTheRegionBurst() throws Exception {
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            results.add(scheduler.submit(ControlPlaneScheduler.Operation.READ, "eu-west-1",
+                    ControlPlaneScheduler.Priority.BACKGROUND, () -> CompletableFuture.completedFuture(value)));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Integer.valueOf(i), results.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void failedCallFailsItsResult() {
+        CompletableFuture<String> result = scheduler.submit(ControlPlaneScheduler.Operation.DEPLOY, "us-west-2",
+                ControlPlaneScheduler.Priority.NORMAL,
+                () -> CompletableFuture.failedFuture(new IllegalArgumentException("bad request")));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void closedSchedulerRejectsCalls() {
+        scheduler.close();
+        CompletableFuture<String> result = scheduler.submit(ControlPlaneScheduler.Operation.READ, "us-east-1",
+                ControlPlaneScheduler.Priority.INTERACTIVE, () -> CompletableFuture.completedFuture("done"));
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+}
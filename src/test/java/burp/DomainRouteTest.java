@@ -0,0 +1,105 @@
+package burp;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * WEIGHTED selection through a published route picks each gateway in proportion to its
+ * GatewayConfig weight. Routes are seeded through DomainConfig(domain, seed), so every run
+ * draws the same sequence.
+ */
+class DomainRouteTest {
+    private static final long SEED = 20240611L;
+    private static final int DRAWS_PER_GATEWAY = 2000;
+
+    @BeforeAll
+    static void installObjectFactory() {
+        // GatewayEndpoint.parse calls HttpService.httpService, which Burp normally provides
+        if (ObjectFactoryLocator.FACTORY != null) {
+            return;
+        }
+        ObjectFactoryLocator.FACTORY = (MontoyaObjectFactory) Proxy.newProxyInstance(
+                MontoyaObjectFactory.class.getClassLoader(),
+                new Class<?>[]{MontoyaObjectFactory.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("httpService") && args.length == 3) {
+                        return stubHttpService((String) args[0], (Integer) args[1], (Boolean) args[2]);
+                    }
+                    throw new UnsupportedOperationException(method.toString());
+                });
+    }
+
+    private static HttpService stubHttpService(String host, int port, boolean secure) {
+        return (HttpService) Proxy.newProxyInstance(HttpService.class.getClassLoader(),
+                new Class<?>[]{HttpService.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "host":
+                            return host;
+                        case "port":
+                            return port;
+                        case "secure":
+                            return secure;
+                        case "toString":
+                            return host + ":" + port;
+                        default:
+                            throw new UnsupportedOperationException(method.toString());
+                    }
+                });
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 10, 64})
+    void weightedRouteFollowsGatewayWeights(int gatewayCount) {
+        Random weightSource = new Random(SEED + gatewayCount);
+        int[] weights = new int[gatewayCount];
+        for (int i = 0; i < gatewayCount; i++) {
+            weights[i] = 1 + weightSource.nextInt(100);
+        }
+
+        DomainConfig domainConfig = weightedDomain(weights);
+        DomainRoute route = domainConfig.toRoute(CircuitBreaker.Settings.DEFAULT, new RateLimiter(),
+                new TrafficMetrics());
+        List<GatewayEndpoint> endpoints = domainConfig.getEndpoints();
+        Map<GatewayEndpoint, Integer> index = new HashMap<>();
+        int[] configuredWeights = new int[endpoints.size()];
+        for (int i = 0; i < endpoints.size(); i++) {
+            index.put(endpoints.get(i), i);
+            configuredWeights[i] = endpoints.get(i).getGateway().getWeight();
+        }
+
+        long[] observed = new long[endpoints.size()];
+        for (int i = 0; i < DRAWS_PER_GATEWAY * gatewayCount; i++) {
+            observed[index.get(route.next())]++;
+        }
+        AliasTableTest.assertChiSquareBelowCritical(observed, configuredWeights);
+    }
+
+    private static DomainConfig weightedDomain(int[] weights) {
+        DomainConfig domainConfig = new DomainConfig("weighted.example.com", SEED);
+        domainConfig.setStrategy(DomainConfig.RotationStrategy.WEIGHTED);
+        for (int i = 0; i < weights.length; i++) {
+            String url = String.format("https://gw%04d.execute-api.us-east-1.amazonaws.com/v1", i);
+            try {
+                domainConfig.addGateway(new GatewayConfig(url, "us-east-1", weights[i]));
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        assertEquals(weights.length, domainConfig.getGatewayCount());
+        return domainConfig;
+    }
+}